@@ -2,17 +2,47 @@ package com.kamron.pogoiv;
 
 import android.graphics.Bitmap;
 import android.graphics.Color;
+import android.os.Process;
 import android.support.annotation.NonNull;
-import android.util.LruCache;
+import android.support.annotation.Nullable;
 
 import com.google.common.base.Optional;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.googlecode.tesseract.android.TessBaseAPI;
 import com.kamron.pogoiv.logic.Data;
 import com.kamron.pogoiv.logic.ScanResult;
+import com.kamron.pogoiv.ocr.BinaryAtlas;
+import com.kamron.pogoiv.ocr.DigitRecognizer;
+import com.kamron.pogoiv.ocr.EvolutionCostClassifier;
+import com.kamron.pogoiv.ocr.FingerprintCache;
+import com.kamron.pogoiv.ocr.Glyph;
+import com.kamron.pogoiv.ocr.GlyphSegmenter;
+import com.kamron.pogoiv.ocr.PersistentOcrCache;
+import com.kamron.pogoiv.ocr.PixelRegion;
+import com.kamron.pogoiv.ocr.RegionFingerprint;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import timber.log.Timber;
 
@@ -22,9 +52,68 @@ import timber.log.Timber;
  */
 public class OcrHelper {
 
+    /**
+     * How many regions of the screen scanPokemon sends through OCR: name, candy name, HP, CP, candy amount,
+     * evolution cost and identifier. There's no point in having more engines than that.
+     */
+    private static final int OCR_FIELD_COUNT = 7;
+    /**
+     * The minimum tesseract mean confidence for its result to be used as templates by the digit recognizer.
+     */
+    private static final int MIN_LEARNING_CONFIDENCE = 80;
+    /**
+     * Fields are fingerprinted reading only one row out of this many, the text spans a lot more rows than that.
+     */
+    private static final int FINGERPRINT_ROW_STEP = 2;
+    private static final int CACHE_SIZE_PER_FIELD = 64;
+    /**
+     * The part of the screen fingerprinted by scanPokemon: everything between the status bar, whose clock
+     * changes, and the buttons at the bottom of the screen, over which the IV button is drawn.
+     */
+    private static final double SCREEN_FINGERPRINT_TOP = 0.05;
+    private static final double SCREEN_FINGERPRINT_BOTTOM = 0.80;
+    private static final int SCREEN_FINGERPRINT_ROW_STEP = 4;
+
     private static OcrHelper instance = null;
-    private TessBaseAPI tesseract = null;
-    private final LruCache<String, String> ocrCache = new LruCache<>(200);
+    private final String dataPath;
+    private final int maxEngines;
+    /**
+     * All the tesseract engines created so far, at most maxEngines. Guarded by itself.
+     */
+    private final List<PooledEngine> engines = new ArrayList<>();
+    /**
+     * The engines that are initialized and not recognizing any field right now.
+     */
+    private final BlockingQueue<PooledEngine> idleEngines = new LinkedBlockingQueue<>();
+    /**
+     * Set by exit. The engines still recognizing a field are ended when they're released. Guarded by engines.
+     */
+    private boolean disposed = false;
+    private ListeningExecutorService ocrExecutor;
+    /**
+     * The results of previous sessions, backing the caches of each field.
+     */
+    private final PersistentOcrCache persistentCache;
+    private final FingerprintCache<String> nameCache;
+    private final FingerprintCache<String> candyNameCache;
+    private final FingerprintCache<Optional<Integer>> hpCache;
+    private final FingerprintCache<Optional<Integer>> minHPCache;
+    private final FingerprintCache<Optional<Integer>> candyAmountCache;
+    private final FingerprintCache<Optional<Integer>> evolutionCostCache;
+    /**
+     * The pixels of the last scanned screen, reused across scans to avoid allocating a full screen buffer each time.
+     */
+    private int[] frameBuffer = new int[0];
+    /**
+     * The binarized fields of the last scan, which the engines recognize text from.
+     */
+    private final BinaryAtlas atlas = new BinaryAtlas();
+    private final DigitRecognizer digitRecognizer = new DigitRecognizer();
+    /**
+     * The file where the templates learned by the digit recognizer are kept from one session to the next.
+     */
+    private final File digitTemplatesFile;
+    private final EvolutionCostClassifier evolutionCostClassifier;
     private final int heightPixels;
     private final int widthPixels;
     private final boolean candyWordFirst;
@@ -32,41 +121,84 @@ public class OcrHelper {
     private final String nidoMale;
     private final boolean isPokeSpamEnabled;
 
-    private OcrHelper(String dataPath, int widthPixels, int heightPixels, String nidoFemale, String nidoMale,
-                      boolean isPokeSpamEnabled) {
-        tesseract = new TessBaseAPI();
-        tesseract.init(dataPath, "eng");
-        tesseract.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
-        tesseract.setVariable(TessBaseAPI.VAR_CHAR_WHITELIST,
-                "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789/♀♂");
+    private OcrHelper(String dataPath, File cacheFile, File digitTemplatesFile, int widthPixels, int heightPixels,
+                      String nidoFemale, String nidoMale, boolean isPokeSpamEnabled, int[] evolutionCandyCosts) {
+        this.dataPath = dataPath;
+        this.digitTemplatesFile = digitTemplatesFile;
+        loadDigitTemplates();
+        this.persistentCache = new PersistentOcrCache(cacheFile);
+        this.nameCache = new FingerprintCache<>(CACHE_SIZE_PER_FIELD,
+                persistentCache.textField(PersistentOcrCache.FIELD_NAME));
+        this.candyNameCache = new FingerprintCache<>(CACHE_SIZE_PER_FIELD,
+                persistentCache.textField(PersistentOcrCache.FIELD_CANDY_NAME));
+        this.hpCache = new FingerprintCache<>(CACHE_SIZE_PER_FIELD,
+                persistentCache.numberField(PersistentOcrCache.FIELD_HP));
+        this.minHPCache = new FingerprintCache<>(CACHE_SIZE_PER_FIELD,
+                persistentCache.numberField(PersistentOcrCache.FIELD_MIN_HP));
+        this.candyAmountCache = new FingerprintCache<>(CACHE_SIZE_PER_FIELD,
+                persistentCache.numberField(PersistentOcrCache.FIELD_CANDY_AMOUNT));
+        this.evolutionCostCache = new FingerprintCache<>(CACHE_SIZE_PER_FIELD,
+                persistentCache.numberField(PersistentOcrCache.FIELD_EVOLUTION_COST));
+        this.maxEngines = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), OCR_FIELD_COUNT));
+        this.ocrExecutor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(maxEngines));
+        //Initialize the first engine right away, so that a missing or broken traineddata file shows up at startup.
+        idleEngines.add(createEngine());
         this.heightPixels = heightPixels;
         this.widthPixels = widthPixels;
         this.candyWordFirst = isCandyWordFirst();
         this.nidoFemale = nidoFemale;
         this.nidoMale = nidoMale;
         this.isPokeSpamEnabled = isPokeSpamEnabled;
+        this.evolutionCostClassifier = new EvolutionCostClassifier(evolutionCandyCosts, digitRecognizer);
     }
 
     /**
      * init
      * Initializes the OCR helper and readies it for use
      *
-     * @param dataPath Path the OCR data files.
+     * @param dataPath            Path the OCR data files.
+     * @param cacheFile           The file where OCR results are kept from one session to the next.
+     * @param digitTemplatesFile  The file where the glyphs learned by the digit recognizer are kept from one session
+     *                            to the next.
+     * @param evolutionCandyCosts The evolution cost of every pokemon, the only values the evolution cost field can
+     *                            show.
      * @return Bitmap with replaced colors
      */
-    public static OcrHelper init(String dataPath, int widthPixels, int heightPixels, String nidoFemale,
-                                 String nidoMale, boolean isPokeSpamEnabled) {
+    public static OcrHelper init(String dataPath, File cacheFile, File digitTemplatesFile, int widthPixels,
+                                 int heightPixels, String nidoFemale, String nidoMale, boolean isPokeSpamEnabled,
+                                 int[] evolutionCandyCosts) {
         if (instance == null) {
-            instance = new OcrHelper(dataPath, widthPixels, heightPixels, nidoFemale, nidoMale, isPokeSpamEnabled);
+            instance = new OcrHelper(dataPath, cacheFile, digitTemplatesFile, widthPixels, heightPixels, nidoFemale,
+                    nidoMale, isPokeSpamEnabled, evolutionCandyCosts);
         }
         return instance;
     }
 
     public void exit() {
-        if (tesseract != null) {
-            tesseract.stop();
-            tesseract.end();
-            tesseract = null;
+        if (ocrExecutor != null) {
+            //Complete the futures of the deferred fields which won't be recognized, nobody must wait for them.
+            for (Runnable task : ocrExecutor.shutdownNow()) {
+                if (task instanceof Future) {
+                    ((Future<?>) task).cancel(false);
+                }
+            }
+            ocrExecutor = null;
+            //The pool threads may still be recognizing fields, their engines are ended when they're released.
+            synchronized (engines) {
+                disposed = true;
+                for (PooledEngine engine : engines) {
+                    engine.api.stop();
+                }
+                PooledEngine engine;
+                while ((engine = idleEngines.poll()) != null) {
+                    engine.api.end();
+                    engines.remove(engine);
+                }
+            }
+            Timber.d("OCR caches: name %s, candy %s, hp %s, min hp %s, candy amount %s, evolution cost %s", nameCache,
+                    candyNameCache, hpCache, minHPCache, candyAmountCache, evolutionCostCache);
+            persistentCache.close();
+            saveDigitTemplates();
             instance = null;
         } else {
             Timber.e("Avoided NPE on OcrHelper.exit()");
@@ -75,77 +207,282 @@ public class OcrHelper {
         }
     }
 
-    private boolean isCandyWordFirst() {
-        //Check if language makes the pokemon name in candy second; France/Spain/Italy have Bonbon/Caramelos pokeName.
-        String language = Locale.getDefault().getLanguage();
-        HashSet<String> specialCandyOrderLangs = new HashSet<>(Arrays.asList("fr", "es", "it"));
-        return specialCandyOrderLangs.contains(language);
+    /**
+     * Reads the glyphs the digit recognizer learned in the previous sessions. If they can't be read, they're learned
+     * again.
+     */
+    private void loadDigitTemplates() {
+        if (!digitTemplatesFile.exists()) {
+            return;
+        }
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(digitTemplatesFile));
+            digitRecognizer.readFrom(in);
+        } catch (IOException e) {
+            Timber.e(e, "Could not read the digit templates, they will be learned again");
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    Timber.w(e, "Could not close the digit templates file");
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the glyphs learned by the digit recognizer for the next sessions. They're written to a temporary file
+     * first, so that a failed write doesn't lose the ones saved before.
+     */
+    private void saveDigitTemplates() {
+        File tempFile = new File(digitTemplatesFile.getPath() + ".tmp");
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(tempFile));
+            digitRecognizer.writeTo(out);
+            out.close();
+            out = null;
+            if (!tempFile.renameTo(digitTemplatesFile)) {
+                throw new IOException("Could not replace " + digitTemplatesFile);
+            }
+        } catch (IOException e) {
+            Timber.e(e, "Could not save the digit templates");
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    Timber.w(e, "Could not close the digit templates file");
+                }
+            }
+        }
     }
 
     /**
-     * Replaces colors in a bitmap that are not farther away from a specific color than a given
-     * threshold.
+     * Cancels a scan: its fields not recognized yet are skipped, including the deferred ones, and the engines
+     * recognizing its fields are asked to stop. The scan then throws a CancellationException. The other scans go on.
+     * Can be called from any thread.
      *
-     * @param srcBitmap    The source bitmap to scan.
-     * @param mutateSrc    Indicates whether to mutate srcBitmap or to produce a new one.
-     * @param keepCr       The red color to keep
-     * @param keepCg       The green color to keep
-     * @param keepCb       The blue color to keep
-     * @param replaceColor The color to replace mismatched colors with
-     * @param distance     The distance threshold.
-     * @param simpleBG     Whether the bitmap has a simple background
-     * @return Bitmap with replaced colors
+     * @param scan The scan to cancel.
+     */
+    public void cancel(ScanHandle scan) {
+        scan.cancelled = true;
+        synchronized (engines) {
+            for (PooledEngine engine : engines) {
+                if (engine.scan == scan) {
+                    engine.api.stop();
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues the recognition of a field of a scan on the pool threads. The field is skipped if the scan is cancelled
+     * before it starts, and recognized at a low priority if the scan is a background one.
+     */
+    private <V> ListenableFuture<V> submitField(final ScanHandle scan, final Callable<V> field) {
+        return ocrExecutor.submit(new Callable<V>() {
+            @Override public V call() throws Exception {
+                if (scan.cancelled) {
+                    throw new CancellationException("Scan cancelled");
+                }
+                if (!scan.background) {
+                    return field.call();
+                }
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                try {
+                    return field.call();
+                } finally {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_DEFAULT);
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates and initializes a new tesseract engine, and adds it to the engines list.
+     *
+     * @return An engine ready to recognize a single line of text.
      */
-    private Bitmap replaceColors(Bitmap srcBitmap, boolean mutateSrc, int keepCr, int keepCg, int keepCb,
-                                 int replaceColor, int distance, boolean simpleBG) {
-        int[] allpixels = new int[srcBitmap.getHeight() * srcBitmap.getWidth()];
-        srcBitmap.getPixels(allpixels, 0, srcBitmap.getWidth(), 0, 0, srcBitmap.getWidth(), srcBitmap.getHeight());
-        int bgColor = replaceColor;
-        int distanceSq = distance * distance;
+    private PooledEngine createEngine() {
+        TessBaseAPI api = new TessBaseAPI();
+        api.init(dataPath, "eng");
+        api.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
+        api.setVariable(TessBaseAPI.VAR_CHAR_WHITELIST,
+                "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789/♀♂");
+        PooledEngine engine = new PooledEngine(api);
+        synchronized (engines) {
+            engines.add(engine);
+        }
+        return engine;
+    }
 
-        if (simpleBG) {
-            bgColor = allpixels[0];
+    /**
+     * Takes an engine out of the pool, creating a new one if all existing engines are busy and the pool isn't full
+     * yet, or waiting for one to be released otherwise.
+     *
+     * @param scan The scan the engine recognizes a field for.
+     * @return An engine which must be given back with releaseEngine.
+     * @throws CancellationException if exit was called, or the thread was interrupted while waiting for an engine.
+     */
+    private PooledEngine acquireEngine(ScanHandle scan) {
+        PooledEngine engine = takeEngine();
+        synchronized (engines) {
+            engine.scan = scan;
         }
+        return engine;
+    }
 
-        for (int i = 0; i < allpixels.length; i++) {
-            /* Avoid unnecessary math for obviously background color. This removes most of the math
-             * for candy, HP and name bitmaps. */
-            if (allpixels[i] == bgColor) {
-                allpixels[i] = replaceColor;
-                continue;
+    private PooledEngine takeEngine() {
+        PooledEngine engine = idleEngines.poll();
+        if (engine != null) {
+            return engine;
+        }
+        synchronized (engines) {
+            if (disposed) {
+                throw new CancellationException("OCR exited");
             }
-            int rDiff = keepCr - Color.red(allpixels[i]);
-            int gDiff = keepCg - Color.green(allpixels[i]);
-            int bDiff = keepCb - Color.blue(allpixels[i]);
-            int dSq = rDiff * rDiff + gDiff * gDiff + bDiff * bDiff;
-            if (dSq > distanceSq) {
-                allpixels[i] = replaceColor;
+            if (engines.size() < maxEngines) {
+                return createEngine();
             }
         }
+        //Wait interruptibly: the engines of a disposed pool are never released, but exit interrupts the waiters.
+        try {
+            return idleEngines.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for an engine");
+        }
+    }
 
-        Bitmap dstBitmap;
-        if (mutateSrc) {
-            dstBitmap = srcBitmap;
-        } else {
-            dstBitmap = Bitmap.createBitmap(srcBitmap.getWidth(), srcBitmap.getHeight(), srcBitmap.getConfig());
+    /**
+     * Gives an engine back to the pool, or ends it if exit was called while it was in use.
+     */
+    private void releaseEngine(PooledEngine engine) {
+        synchronized (engines) {
+            engine.scan = null;
+            if (disposed) {
+                engine.api.end();
+                engines.remove(engine);
+                return;
+            }
+            idleEngines.add(engine);
+        }
+    }
+
+    /**
+     * Runs OCR on a strip of an atlas using whichever engine of the pool is free. The engine is only given the
+     * atlas again if it hasn't seen its current content yet.
+     *
+     * @param scan  The scan the strip belongs to.
+     * @param strip The strip containing a single line of text.
+     * @return The text recognized by tesseract.
+     */
+    private String recognizeText(ScanHandle scan, BinaryAtlas.Strip strip) {
+        PooledEngine engine = acquireEngine(scan);
+        try {
+            return recognizeText(engine, strip);
+        } finally {
+            releaseEngine(engine);
+        }
+    }
+
+    private String recognizeText(PooledEngine engine, BinaryAtlas.Strip strip) {
+        if (engine.scan.cancelled) {
+            throw new CancellationException("Scan cancelled");
+        }
+        BinaryAtlas stripAtlas = strip.atlas;
+        if (engine.atlas != stripAtlas || engine.atlasGeneration != stripAtlas.getGeneration()) {
+            engine.api.setImage(stripAtlas.getBytes(), stripAtlas.getWidth(), stripAtlas.getHeight(), 1,
+                    stripAtlas.getWidth());
+            engine.atlas = stripAtlas;
+            engine.atlasGeneration = stripAtlas.getGeneration();
+        }
+        engine.api.setRectangle(0, strip.top, strip.getWidth(), strip.getHeight());
+        return engine.api.getUTF8Text();
+    }
+
+    /**
+     * Recognizes a strip containing mostly digits, with the digit recognizer if it knows all its glyphs, or with
+     * tesseract otherwise. Confident tesseract results are used to teach the digit recognizer new glyphs.
+     *
+     * @param scan  The scan the strip belongs to.
+     * @param strip The strip containing a single line of text.
+     * @return The text recognized, which may have lost its whitespace.
+     */
+    private String recognizeNumericText(ScanHandle scan, BinaryAtlas.Strip strip) {
+        return recognizeNumericText(scan, strip, GlyphSegmenter.segment(strip.atlas, strip));
+    }
+
+    private String recognizeNumericText(ScanHandle scan, BinaryAtlas.Strip strip, List<Glyph> glyphs) {
+        Optional<String> text = digitRecognizer.recognize(glyphs);
+        if (text.isPresent()) {
+            return text.get();
+        }
+
+        PooledEngine engine = acquireEngine(scan);
+        try {
+            String ocrText = recognizeText(engine, strip);
+            if (engine.api.meanConfidence() >= MIN_LEARNING_CONFIDENCE) {
+                digitRecognizer.learn(glyphs, ocrText);
+            }
+            return ocrText;
+        } finally {
+            releaseEngine(engine);
+        }
+    }
+
+    /**
+     * Fingerprints the part of a screen showing the pokemon, to tell whether two screenshots show the same pokemon
+     * screen.
+     *
+     * @param frame The entire screen.
+     * @return The fingerprint, equal for screenshots of the same screen.
+     */
+    private static long fingerprintScreen(PixelRegion frame) {
+        int top = (int) Math.round(frame.height * SCREEN_FINGERPRINT_TOP);
+        int bottom = (int) Math.round(frame.height * SCREEN_FINGERPRINT_BOTTOM);
+        return RegionFingerprint.of(frame.subRegion(0, top, frame.width, bottom - top), SCREEN_FINGERPRINT_ROW_STEP);
+    }
+
+    /**
+     * Reads all the pixels of a screenshot in the reusable frame buffer.
+     *
+     * @param image The screenshot.
+     * @return A region covering the whole screenshot.
+     */
+    private PixelRegion loadFrame(Bitmap image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (frameBuffer.length < width * height) {
+            frameBuffer = new int[width * height];
         }
-        dstBitmap.setPixels(allpixels, 0, srcBitmap.getWidth(), 0, 0, srcBitmap.getWidth(), srcBitmap.getHeight());
-        return dstBitmap;
+        image.getPixels(frameBuffer, 0, width, 0, 0, width, height);
+        return new PixelRegion(frameBuffer, 0, width, width, height);
+    }
+
+    private boolean isCandyWordFirst() {
+        //Check if language makes the pokemon name in candy second; France/Spain/Italy have Bonbon/Caramelos pokeName.
+        String language = Locale.getDefault().getLanguage();
+        HashSet<String> specialCandyOrderLangs = new HashSet<>(Arrays.asList("fr", "es", "it"));
+        return specialCandyOrderLangs.contains(language);
     }
 
     /**
      * Scans the arc and tries to determine the pokemon level, returns 1 if nothing found.
      *
-     * @param pokemonImage The image of the entire screen
+     * @param frame The entire screen
      * @return the estimated pokemon level, or 1 if nothing found
      */
-    private double getPokemonLevelFromImg(Bitmap pokemonImage, int trainerLevel) {
+    private double getPokemonLevelFromImg(PixelRegion frame, int trainerLevel) {
         double estimatedPokemonLevel = Data.trainerLevelToMaxPokeLevel(trainerLevel);
         for (double estPokemonLevel = estimatedPokemonLevel; estPokemonLevel >= 1.0; estPokemonLevel -= 0.5) {
             int index = Data.levelToLevelIdx(estPokemonLevel);
             int x = Data.arcX[index];
             int y = Data.arcY[index];
-            if (pokemonImage.getPixel(x, y) == Color.rgb(255, 255, 255)) {
+            if (frame.getPixel(x, y) == Color.rgb(255, 255, 255)) {
                 return estPokemonLevel;
             }
         }
@@ -155,48 +492,37 @@ public class OcrHelper {
     /**
      * Get the evolution cost for a pokemon, like getPokemonEvolutionCostFromImg, but without caching.
      *
-     * @param evolutionCostImage The precut image of the evolution cost area.
+     * @param scan   The scan the field is recognized for.
+     * @param layout The strips of the current scan.
      * @return the evolution cost (or -1 if absent) wrapped in Optional.of(), or Optional.absent() on scan failure
      */
-    private Optional<Integer> getPokemonEvolutionCostFromImgUncached(Bitmap evolutionCostImage) {
-        //clean the image
-        //the dark color used for text in pogo is approximately rgb 76,112,114 if you can afford evo
-        //and the red color is rgb 255 95 100 when you cant afford the evolution
-        Bitmap evolutionCostImageCanAfford = replaceColors(evolutionCostImage, false, 68, 105, 108, Color.WHITE, 28,
-                false);
-        Bitmap evolutionCostImageCannotAfford = replaceColors(evolutionCostImage, false, 255, 95, 100, Color.WHITE, 17,
-                false);
-
-        boolean affordIsBlank = isOnlyWhite(evolutionCostImageCanAfford);
-        boolean cannotAffordIsBlank = isOnlyWhite(evolutionCostImageCannotAfford);
+    private Optional<Integer> getPokemonEvolutionCostFromImgUncached(ScanHandle scan, AtlasLayout layout) {
+        boolean affordIsBlank = atlas.isBlank(layout.canAffordEvolutionCost);
+        boolean cannotAffordIsBlank = atlas.isBlank(layout.cannotAffordEvolutionCost);
         //check if fully evolved
         if (affordIsBlank && cannotAffordIsBlank) { //if there's no red or black text, there's no text at all.
             return Optional.of(-1);
         }
 
         //use the correctly refined image (refined for red or black text)
+        BinaryAtlas.Strip evolutionCostStrip;
         if (affordIsBlank) {
-            evolutionCostImage = evolutionCostImageCannotAfford;
+            evolutionCostStrip = layout.cannotAffordEvolutionCost;
         } else {
-            evolutionCostImage = evolutionCostImageCanAfford;
+            evolutionCostStrip = layout.canAffordEvolutionCost;
         }
 
-        //If not cached or fully evolved, ocr text
-        int result;
-        tesseract.setImage(evolutionCostImage);
-        String ocrResult = fixOcrLettersToNums(tesseract.getUTF8Text());
+        //The cost can only be one of a few values, which is easier to tell than reading any number.
+        List<Glyph> glyphs = GlyphSegmenter.segment(atlas, evolutionCostStrip);
+        Optional<Integer> classifiedCost = evolutionCostClassifier.classify(glyphs);
+        if (classifiedCost.isPresent()) {
+            return classifiedCost;
+        }
+
+        //Until the recognizer learned the digits of the costs, ocr text
+        String ocrResult = fixOcrLettersToNums(recognizeNumericText(scan, evolutionCostStrip, glyphs));
         try {
-            result = Integer.parseInt(ocrResult);
-            if (result == 10 || result == 1) { //second zero hidden behind floating button
-                result = 100;
-            } else if (result == 40 || result == 4) { //second zero hidden behind floating button
-                result = 400; //damn magikarp
-            } else if (result == 5) {
-                result = 50; //second zero hidden behind button
-            } else if (result == 2) {
-                result = 25; //5 hidden behind button
-            }
-            return Optional.of(result);
+            return Optional.of(EvolutionCostClassifier.correctCoveredReading(Integer.parseInt(ocrResult)));
         } catch (NumberFormatException e) {
             return Optional.absent(); //could not ocr text
         }
@@ -206,67 +532,22 @@ public class OcrHelper {
      * Get the evolution cost for a pokemon, example, weedle: 12.
      * If there was no detected upgrade cost, returns -1.
      *
-     * @param pokemonImage The image of the full pokemon screen
+     * @param scan   The scan the field is recognized for.
+     * @param layout The strips of the current scan.
      * @return the evolution cost (or -1 if absent) wrapped in Optional.of(), or Optional.absent() on scan failure
      */
-    private Optional<Integer> getPokemonEvolutionCostFromImg(Bitmap pokemonImage) {
-        Bitmap evolutionCostImage = getImageCrop(pokemonImage, 0.625, 0.88, 0.2, 0.03);
-        String hash = "candyCost" + hashBitmap(evolutionCostImage);
+    private Optional<Integer> getPokemonEvolutionCostFromImg(ScanHandle scan, AtlasLayout layout) {
+        long fingerprint = RegionFingerprint.of(layout.canAffordEvolutionCost.source, FINGERPRINT_ROW_STEP);
 
         //return cache if it exists
-        String stringCacheEvoCandyCost = ocrCache.get(hash);
-        if (stringCacheEvoCandyCost != null) {
-            //XXX in the cache, we encode "no result" as an empty string. That's a hack.
-            if (stringCacheEvoCandyCost.isEmpty()) {
-                return Optional.absent();
-            } else {
-                return Optional.of(Integer.parseInt(stringCacheEvoCandyCost));
-            }
+        Optional<Integer> result = evolutionCostCache.get(fingerprint);
+        if (result == null) {
+            result = getPokemonEvolutionCostFromImgUncached(scan, layout);
+            evolutionCostCache.put(fingerprint, result);
         }
-        Optional<Integer> result = getPokemonEvolutionCostFromImgUncached(evolutionCostImage);
-        String ocrResult;
-        if (result.isPresent()) {
-            ocrResult = String.valueOf(result.get()); //Store error code instead of scanned value
-        } else {
-            //XXX again, in the cache, we encode "no result" as an empty string.
-            ocrResult = "";
-        }
-        ocrCache.put(hash, ocrResult);
         return result;
     }
 
-    /**
-     * Heuristic method to determine if the image looks empty. Works by taking a horisontal row of pixels from he
-     * middle, and looks if they're all pure white.
-     *
-     * @param refinedImage A pre-processed image of the evolution cost. (should be pre-refined to replace all non
-     *                     text colors with pure white)
-     * @return true if the image is likely only white
-     */
-    private boolean isOnlyWhite(Bitmap refinedImage) {
-        int[] pixelArray = new int[refinedImage.getWidth()];
-
-        //below code takes one line of pixels in the middle of the pixture from left to right
-        refinedImage.getPixels(pixelArray, 0, refinedImage.getWidth(), 0, refinedImage.getHeight() / 2, refinedImage
-                .getWidth(), 1);
-
-        for (int pixel : pixelArray) {
-            if (pixel != Color.rgb(255, 255, 255)) { // if pixel is not white
-                return false;
-            }
-        }
-        return true;
-    }
-
-    /**
-     * Get the hashcode for a bitmap.
-     */
-    private String hashBitmap(Bitmap bmp) {
-        int[] allpixels = new int[bmp.getHeight() * bmp.getWidth()];
-        bmp.getPixels(allpixels, 0, bmp.getWidth(), 0, 0, bmp.getWidth(), bmp.getHeight());
-        return Integer.toHexString(Arrays.hashCode(allpixels));
-    }
-
     /**
      * Correct some OCR errors in argument where only letters are expected.
      */
@@ -288,23 +569,25 @@ public class OcrHelper {
      * Takes a subportion of the screen, and averages the color to check the average values and compares to known
      * male / female average
      *
-     * @param pokemonImage The screenshot of the entire application
+     * @param frame The screenshot of the entire application
      * @return True if the nidoran is female
      */
-    private boolean isNidoranFemale(Bitmap pokemonImage) {
-        Bitmap pokemon = getImageCrop(pokemonImage, 0.33, 0.25, 0.33, 0.2);
-        int[] pixelArray = new int[pokemon.getHeight() * pokemon.getWidth()];
-        pokemon.getPixels(pixelArray, 0, pokemon.getWidth(), 0, 0, pokemon.getWidth(), pokemon.getHeight());
+    private boolean isNidoranFemale(PixelRegion frame) {
+        PixelRegion pokemon = getRegion(frame, 0.33, 0.25, 0.33, 0.2);
+        int pixelCount = pokemon.width * pokemon.height;
         int greenSum = 0;
         int blueSum = 0;
 
         // a loop that sums the color values of all the pixels in the image of the nidoran
-        for (int pixel : pixelArray) {
-            blueSum += Color.green(pixel);
-            greenSum += Color.blue(pixel);
+        for (int y = 0; y < pokemon.height; y++) {
+            for (int x = 0; x < pokemon.width; x++) {
+                int pixel = pokemon.getPixel(x, y);
+                blueSum += Color.green(pixel);
+                greenSum += Color.blue(pixel);
+            }
         }
-        int greenAverage = greenSum / pixelArray.length;
-        int blueAverage = blueSum / pixelArray.length;
+        int greenAverage = greenSum / pixelCount;
+        int blueAverage = blueSum / pixelCount;
         //Average male nidoran has RGB value ~~ 136,165,117
         //Average female nidoran has RGB value~ 135,190,140
         int femaleGreenLimit = 175; //if average green is over 175, its probably female
@@ -319,51 +602,49 @@ public class OcrHelper {
     /**
      * Get the pokemon name as analysed from a pokemon image.
      *
-     * @param pokemonImage the image of the whole screen
+     * @param scan   The scan the field is recognized for.
+     * @param frame  the whole screen
+     * @param layout The strips of the current scan.
      * @return A string resulting from the scan
      */
-    private String getPokemonNameFromImg(Bitmap pokemonImage) {
-        Bitmap name = getImageCrop(pokemonImage, 0.1, 0.45, 0.85, 0.055);
-        String hash = "name" + hashBitmap(name);
-        String pokemonName = ocrCache.get(hash);
+    private String getPokemonNameFromImg(ScanHandle scan, PixelRegion frame, AtlasLayout layout) {
+        long fingerprint = RegionFingerprint.of(layout.name.source, FINGERPRINT_ROW_STEP);
+        String pokemonName = nameCache.get(fingerprint);
 
         if (pokemonName == null) {
-            name = replaceColors(name, true, 68, 105, 108, Color.WHITE, 200, true);
-            tesseract.setImage(name);
-            pokemonName = fixOcrNumsToLetters(tesseract.getUTF8Text().replace(" ", ""));
-            if (pokemonName.toLowerCase().contains("nidora")) {
-                pokemonName = getNidoranGenderName(pokemonImage);
-            }
-            name.recycle();
-            ocrCache.put(hash, pokemonName);
+            pokemonName = fixOcrNumsToLetters(recognizeText(scan, layout.name).replace(" ", ""));
+            nameCache.put(fingerprint, pokemonName);
+        }
+        //Both nidorans have the same name, so the gender isn't cached with it.
+        if (pokemonName.toLowerCase().contains("nidora")) {
+            pokemonName = getNidoranGenderName(frame);
         }
         return pokemonName;
     }
 
     /**
-     * Get a cropped version of your image.
+     * Get a region of the screen, without copying it.
      *
-     * @param img     Which image to crop
+     * @param frame   The whole screen
      * @param xStart  % of how far in the top left corner of the crop should be x coordinate
      * @param yStart  % of how far in the top left corner of the crop should be y coordinate
      * @param xWidth  how many % of the width should be kept starting from the xstart.
      * @param yHeight how many % of the height should be kept starting from the ystart.
-     * @return The crop of the image.
+     * @return The region of the screen.
      */
-    public Bitmap getImageCrop(Bitmap img, double xStart, double yStart, double xWidth, double yHeight) {
-        Bitmap crop = Bitmap.createBitmap(img, (int) (widthPixels * xStart), (int) (heightPixels * yStart),
+    private PixelRegion getRegion(PixelRegion frame, double xStart, double yStart, double xWidth, double yHeight) {
+        return frame.subRegion((int) (widthPixels * xStart), (int) (heightPixels * yStart),
                 (int) (widthPixels * xWidth), (int) (heightPixels * yHeight));
-        return crop;
     }
 
     /**
      * Get the correctly gendered name of a pokemon.
      *
-     * @param pokemonImage The image of the nidoranX.
+     * @param frame The screen showing the nidoranX.
      * @return The correct name of the pokemon, with the gender symbol at the end.
      */
-    private String getNidoranGenderName(Bitmap pokemonImage) {
-        if (isNidoranFemale(pokemonImage)) {
+    private String getNidoranGenderName(PixelRegion frame) {
+        if (isNidoranFemale(frame)) {
             return nidoFemale;
         } else {
             return nidoMale;
@@ -389,47 +670,77 @@ public class OcrHelper {
     /**
      * Gets the candy name from a pokenon image.
      *
-     * @param pokemonImage the image of the whole screen
+     * @param scan   The scan the field is recognized for.
+     * @param frame  the whole screen
+     * @param layout The strips of the current scan.
      * @return the candy name, or "" if nothing was found
      */
-    private String getCandyNameFromImg(Bitmap pokemonImage) {
-        Bitmap candy = getImageCrop(pokemonImage, 0.5, 0.73, 0.47, 0.026);
-        String hash = "candy" + hashBitmap(candy);
-        String candyName = ocrCache.get(hash);
+    private String getCandyNameFromImg(ScanHandle scan, PixelRegion frame, AtlasLayout layout) {
+        long fingerprint = RegionFingerprint.of(layout.candy.source, FINGERPRINT_ROW_STEP);
+        String candyName = candyNameCache.get(fingerprint);
 
         if (candyName == null) {
-            candy = replaceColors(candy, true, 68, 105, 108, Color.WHITE, 200, true);
-            tesseract.setImage(candy);
             candyName = fixOcrNumsToLetters(
-                    removeFirstOrLastWord(tesseract.getUTF8Text().trim().replace("-", " "), candyWordFirst));
-            candy.recycle();
-            if (candyName.toLowerCase().contains("nidora")) {
-                candyName = getNidoranGenderName(pokemonImage);
-            }
-            ocrCache.put(hash, candyName);
+                    removeFirstOrLastWord(recognizeText(scan, layout.candy).trim().replace("-", " "), candyWordFirst));
+            candyNameCache.put(fingerprint, candyName);
+        }
+        if (candyName.toLowerCase().contains("nidora")) {
+            candyName = getNidoranGenderName(frame);
         }
         return candyName;
     }
 
     /**
-     * Get the pokemon hp from a picture.
+     * Get the pokemon hp from a picture. The field is recognized once for both the max hp and its lower bound.
      *
-     * @param pokemonImage the image of the whole screen
-     * @return an integer of the interpreted pokemon name, 10 if scan failed
+     * @param scan   The scan the field is recognized for.
+     * @param layout The strips of the current scan.
+     * @return the max hp, and the current hp as a lower bound of it when the max hp couldn't be read.
      */
-    private Optional<Integer> getPokemonHPFromImg(Bitmap pokemonImage) {
-        Bitmap hp = getImageCrop(pokemonImage, 0.357, 0.52, 0.285, 0.0293);
-        String hash = "hp" + hashBitmap(hp);
-        String pokemonHPStr = ocrCache.get(hash);
+    private HPReading getPokemonHPFromImg(ScanHandle scan, AtlasLayout layout) {
+        long fingerprint = RegionFingerprint.of(layout.hp.source, FINGERPRINT_ROW_STEP);
+        Optional<Integer> pokemonHP = hpCache.get(fingerprint);
+        if (pokemonHP != null && pokemonHP.isPresent()) {
+            return new HPReading(pokemonHP, pokemonHP);
+        }
+        Optional<Integer> pokemonMinHP = minHPCache.get(fingerprint);
+
+        if (pokemonHP == null || pokemonMinHP == null) {
+            String pokemonHPStr = recognizeNumericText(scan, layout.hp);
+            pokemonHP = parsePokemonHP(pokemonHPStr);
+            //When the max hp can't be read, the current hp still bounds it.
+            pokemonMinHP = pokemonHP.isPresent() ? pokemonHP : parsePokemonMinHP(pokemonHPStr);
+            hpCache.put(fingerprint, pokemonHP);
+            minHPCache.put(fingerprint, pokemonMinHP);
+        }
+        return new HPReading(pokemonHP, pokemonMinHP);
+    }
 
-        if (pokemonHPStr == null) {
-            hp = replaceColors(hp, true, 55, 66, 61, Color.WHITE, 200, true);
-            tesseract.setImage(hp);
-            pokemonHPStr = tesseract.getUTF8Text();
-            ocrCache.put(hash, pokemonHPStr);
+    /**
+     * Get the current hp of a pokemon from the text of the hp field, which is a lower bound of its max hp.
+     *
+     * @param pokemonHPStr The recognized text, like "30 / 5? HP".
+     * @return the current hp, or absent if the text couldn't be parsed.
+     */
+    private static Optional<Integer> parsePokemonMinHP(String pokemonHPStr) {
+        int slash = pokemonHPStr.indexOf('/');
+        if (slash > 0) {
+            try {
+                return Optional.of(Integer.parseInt(fixOcrLettersToNums(pokemonHPStr.substring(0, slash))));
+            } catch (NumberFormatException e) {
+                //Fall-through to default.
+            }
         }
-        hp.recycle();
+        return Optional.absent();
+    }
 
+    /**
+     * Get the max hp of a pokemon from the text of the hp field.
+     *
+     * @param pokemonHPStr The recognized text, like "30 / 55 HP".
+     * @return the max hp, or absent if the text couldn't be parsed.
+     */
+    private static Optional<Integer> parsePokemonHP(String pokemonHPStr) {
         if (pokemonHPStr.contains("/")) {
             try {
                 //If "/" comes at the end we'll get an array with only one component.
@@ -458,14 +769,12 @@ public class OcrHelper {
     /**
      * Get the CP of a pokemon image.
      *
-     * @param pokemonImage the image of the whole pokemon screen
+     * @param scan   The scan the field is recognized for.
+     * @param layout The strips of the current scan.
      * @return a CP of the pokemon, 10 if scan failed
      */
-    private Optional<Integer> getPokemonCPFromImg(Bitmap pokemonImage) {
-        Bitmap cp = getImageCrop(pokemonImage, 0.25, 0.064, 0.5, 0.046);
-        cp = replaceColors(cp, true, 255, 255, 255, Color.BLACK, 30, false);
-        tesseract.setImage(cp);
-        String cpText = tesseract.getUTF8Text();
+    private Optional<Integer> getPokemonCPFromImg(ScanHandle scan, AtlasLayout layout) {
+        String cpText = recognizeNumericText(scan, layout.cp);
 
         /*
          * Always remove the two first characters instead of non-numbers: the "CP" text is 
@@ -487,43 +796,53 @@ public class OcrHelper {
     /**
      * Get the unique identifier of a pokemon, aka even if you power up the pokemon, the result stays the same.
      *
-     * @param pokemonImage the image of the whole pokemon screen
+     * @param scan   The scan the field is recognized for.
+     * @param region A copy of the region of the screen showing the identifier.
      * @return a string which should remain the same even if you power up a pokemon
      */
-    private String getPokemonIdentifierFromImg(Bitmap pokemonImage) {
-        Bitmap infoRow = Bitmap.createBitmap(pokemonImage,
-                (int)Math.round(widthPixels * .1f), (int)Math.round(heightPixels / 1.714286f),
-                (int)Math.round(widthPixels * .8f), (int)Math.round(heightPixels / 25.26316f));
-        tesseract.setImage(infoRow);
-        String uniqueText = tesseract.getUTF8Text();
+    private String getPokemonIdentifierFromImg(ScanHandle scan, PixelRegion region) {
+        BinaryAtlas.Strip identifier = createFieldStrip(region);
+        identifier.atlas.copyLuminance(identifier);
+        String uniqueText = recognizeText(scan, identifier);
 
         return uniqueText;
     }
 
 
     /**
-     * Gets the candy amount from a pokemon image, it will return absent if PokeSpam is disabled.
+     * Gets the candy amount from a pokemon image.
      *
-     * @param pokemonImage the image of the whole screen
+     * @param scan   The scan the field is recognized for.
+     * @param region A copy of the region of the screen showing the candy amount.
      * @return candyAmount the candy amount, or blank Optional object if nothing was found
      */
-    private Optional<Integer> getCandyAmountFromImg(Bitmap pokemonImage) {
-        if (!isPokeSpamEnabled) {
-            return Optional.absent();
-        }
-
-        Bitmap candyAmount = getImageCrop(pokemonImage, 0.60, 0.695, 0.20, 0.038);
-        String hash = "candyAmount" + hashBitmap(candyAmount);
-        String pokemonCandyStr = ocrCache.get(hash);
+    private Optional<Integer> getCandyAmountFromImg(ScanHandle scan, PixelRegion region) {
+        long fingerprint = RegionFingerprint.of(region, FINGERPRINT_ROW_STEP);
+        Optional<Integer> candyAmount = candyAmountCache.get(fingerprint);
 
-        if (pokemonCandyStr == null) {
-            candyAmount = replaceColors(candyAmount, true, 68, 105, 108, Color.WHITE, 90, true);
-            tesseract.setImage(candyAmount);
-            pokemonCandyStr = tesseract.getUTF8Text();
-            ocrCache.put(hash, pokemonCandyStr);
+        if (candyAmount == null) {
+            BinaryAtlas.Strip candyAmountStrip = createFieldStrip(region);
+            candyAmountStrip.atlas.binarize(candyAmountStrip, 68, 105, 108, 90, true);
+            candyAmount = parseCandyAmount(recognizeNumericText(scan, candyAmountStrip));
+            candyAmountCache.put(fingerprint, candyAmount);
         }
-        candyAmount.recycle();
+        return candyAmount;
+    }
+
+    /**
+     * Creates an atlas of its own for a field recognized after the scan, when the shared atlas may hold the fields
+     * of the next scan.
+     *
+     * @param region The region of the field, which must not change while the field is recognized.
+     * @return The only strip of the new atlas, to be filled.
+     */
+    private static BinaryAtlas.Strip createFieldStrip(PixelRegion region) {
+        BinaryAtlas fieldAtlas = new BinaryAtlas();
+        fieldAtlas.reset(region.width);
+        return fieldAtlas.addStrip(region);
+    }
 
+    private static Optional<Integer> parseCandyAmount(String pokemonCandyStr) {
         if (pokemonCandyStr.length() > 0) {
             try {
                 return Optional.of(Integer.parseInt(fixOcrLettersToNums(pokemonCandyStr)));
@@ -535,25 +854,182 @@ public class OcrHelper {
         return Optional.absent();
     }
 
+    /**
+     * Fills the atlas with the binarized fields of a screen. The atlas must not be changed while engines are
+     * recognizing text from it.
+     *
+     * @param frame The whole pokemon screen
+     * @return Where each field was written in the atlas.
+     */
+    private AtlasLayout layoutAtlas(PixelRegion frame) {
+        AtlasLayout layout = new AtlasLayout();
+        atlas.reset(frame.width);
+
+        layout.name = atlas.addStrip(getRegion(frame, 0.1, 0.45, 0.85, 0.055));
+        atlas.binarize(layout.name, 68, 105, 108, 200, true);
+        layout.candy = atlas.addStrip(getRegion(frame, 0.5, 0.73, 0.47, 0.026));
+        atlas.binarize(layout.candy, 68, 105, 108, 200, true);
+        layout.hp = atlas.addStrip(getRegion(frame, 0.357, 0.52, 0.285, 0.0293));
+        atlas.binarize(layout.hp, 55, 66, 61, 200, true);
+        layout.cp = atlas.addStrip(getRegion(frame, 0.25, 0.064, 0.5, 0.046));
+        atlas.binarize(layout.cp, 255, 255, 255, 30, false);
+
+        //the dark color used for text in pogo is approximately rgb 76,112,114 if you can afford evo
+        //and the red color is rgb 255 95 100 when you cant afford the evolution
+        PixelRegion evolutionCost = getRegion(frame, 0.625, 0.88, 0.2, 0.03);
+        layout.canAffordEvolutionCost = atlas.addStrip(evolutionCost);
+        atlas.binarize(layout.canAffordEvolutionCost, 68, 105, 108, 28, false);
+        layout.cannotAffordEvolutionCost = atlas.addStrip(evolutionCost);
+        atlas.binarize(layout.cannotAffordEvolutionCost, 255, 95, 100, 17, false);
+        return layout;
+    }
+
     /**
      * scanPokemon
      * Performs OCR on an image of a pokemon and returns the pulled info.
+     * Every field is recognized on its own tesseract engine in parallel, so the scan takes about as long as the
+     * slowest field instead of the sum of all of them. The screen is read only once into the frame buffer, and all
+     * fields are cleaned into a single grayscale atlas which every engine only has to load once.
+     * Only the fields needed by the input screen are waited for. The candy amount and the unique identifier are
+     * recognized afterwards from copies of their regions, and are available through the futures of the result.
+     * A previous result of the same screen is returned as is, without recognizing any field again.
      *
      * @param pokemonImage The image of the pokemon
      * @param trainerLevel Current level of the trainer
+     * @param reusable     A previous scan at the same trainer level which can be returned if it's of the same
+     *                     screen, or null if there's none.
+     * @param scan         The handle to cancel the scan with, which must not have been used by another scan.
      * @return an object
+     * @throws CancellationException if the scan was cancelled.
+     */
+    public synchronized ScanResult scanPokemon(Bitmap pokemonImage, int trainerLevel, @Nullable ScanResult reusable,
+                                               final ScanHandle scan) {
+        final PixelRegion frame = loadFrame(pokemonImage);
+        long screenFingerprint = fingerprintScreen(frame);
+        if (reusable != null && reusable.getScreenFingerprint() == screenFingerprint) {
+            return reusable;
+        }
+        final AtlasLayout layout = layoutAtlas(frame);
+        ListenableFuture<String> pokemonName = submitField(scan, new Callable<String>() {
+            @Override public String call() {
+                return getPokemonNameFromImg(scan, frame, layout);
+            }
+        });
+        ListenableFuture<String> candyName = submitField(scan, new Callable<String>() {
+            @Override public String call() {
+                return getCandyNameFromImg(scan, frame, layout);
+            }
+        });
+        ListenableFuture<HPReading> pokemonHP = submitField(scan, new Callable<HPReading>() {
+            @Override public HPReading call() {
+                return getPokemonHPFromImg(scan, layout);
+            }
+        });
+        ListenableFuture<Optional<Integer>> pokemonCP = submitField(scan, new Callable<Optional<Integer>>() {
+            @Override public Optional<Integer> call() {
+                return getPokemonCPFromImg(scan, layout);
+            }
+        });
+        ListenableFuture<Optional<Integer>> pokemonUpgradeCost = submitField(scan, new Callable<Optional<Integer>>() {
+            @Override public Optional<Integer> call() {
+                return getPokemonEvolutionCostFromImg(scan, layout);
+            }
+        });
+
+        //The deferred fields are recognized from copies of their regions, queued after the fields of the input
+        //screen.
+        ListenableFuture<Optional<Integer>> pokemonCandyAmount;
+        if (isPokeSpamEnabled) {
+            final PixelRegion candyAmountRegion = getRegion(frame, 0.60, 0.695, 0.20, 0.038).copy();
+            pokemonCandyAmount = submitField(scan, new Callable<Optional<Integer>>() {
+                @Override public Optional<Integer> call() {
+                    return getCandyAmountFromImg(scan, candyAmountRegion);
+                }
+            });
+        } else {
+            pokemonCandyAmount = Futures.immediateFuture(Optional.<Integer>absent());
+        }
+        final PixelRegion identifierRegion = frame.subRegion(
+                (int)Math.round(widthPixels * .1f), (int)Math.round(heightPixels / 1.714286f),
+                (int)Math.round(widthPixels * .8f), (int)Math.round(heightPixels / 25.26316f)).copy();
+        ListenableFuture<String> pokemonUniqueIdentifier = submitField(scan, new Callable<String>() {
+            @Override public String call() {
+                return getPokemonIdentifierFromImg(scan, identifierRegion);
+            }
+        });
+
+        //The arc is only a few pixel reads, do it here while the engines are busy.
+        double estimatedPokemonLevel = getPokemonLevelFromImg(frame, trainerLevel);
+
+        //Wait for every field of the atlas even if one of them failed, since the next scan will overwrite it.
+        Futures.getUnchecked(Futures.successfulAsList(Arrays.<ListenableFuture<?>>asList(pokemonName, candyName,
+                pokemonHP, pokemonCP, pokemonUpgradeCost)));
+        if (scan.cancelled) {
+            throw new CancellationException("Scan cancelled");
+        }
+        HPReading hpReading = Futures.getUnchecked(pokemonHP);
+        return new ScanResult(estimatedPokemonLevel, Futures.getUnchecked(pokemonName),
+                Futures.getUnchecked(candyName), hpReading.hp, hpReading.minHP, Futures.getUnchecked(pokemonCP),
+                pokemonCandyAmount, Futures.getUnchecked(pokemonUpgradeCost), pokemonUniqueIdentifier,
+                screenFingerprint);
+    }
+
+    /**
+     * A tesseract engine of the pool, with the last atlas it was given.
+     */
+    private static class PooledEngine {
+        final TessBaseAPI api;
+        /**
+         * The scan the engine recognizes a field for, or null while it's idle. Guarded by engines.
+         */
+        ScanHandle scan;
+        BinaryAtlas atlas;
+        int atlasGeneration = -1;
+
+        PooledEngine(TessBaseAPI api) {
+            this.api = api;
+        }
+    }
+
+    /**
+     * Identifies a scan, so that it can be cancelled without stopping the other ones, such as the deferred fields of
+     * the previous scan.
+     */
+    public static class ScanHandle {
+        private final boolean background;
+        private volatile boolean cancelled = false;
+
+        /**
+         * @param background Whether the scan is speculative. Its fields are then recognized at a low priority, so
+         *                   that they don't slow down the UI.
+         */
+        public ScanHandle(boolean background) {
+            this.background = background;
+        }
+    }
+
+    /**
+     * The values read from the hp field of a scan.
+     */
+    private static class HPReading {
+        final Optional<Integer> hp;
+        final Optional<Integer> minHP;
+
+        HPReading(Optional<Integer> hp, Optional<Integer> minHP) {
+            this.hp = hp;
+            this.minHP = minHP;
+        }
+    }
+
+    /**
+     * Where the fields of a scan are in the atlas.
      */
-    public ScanResult scanPokemon(Bitmap pokemonImage, int trainerLevel) {
-        double estimatedPokemonLevel = getPokemonLevelFromImg(pokemonImage, trainerLevel);
-        String pokemonName = getPokemonNameFromImg(pokemonImage);
-        String candyName = getCandyNameFromImg(pokemonImage);
-        Optional<Integer> pokemonHP = getPokemonHPFromImg(pokemonImage);
-        Optional<Integer> pokemonCP = getPokemonCPFromImg(pokemonImage);
-        Optional<Integer> pokemonCandyAmount = getCandyAmountFromImg(pokemonImage);
-        Optional<Integer> pokemonUpgradeCost = getPokemonEvolutionCostFromImg(pokemonImage);
-        String pokemonUniqueIdentifier = getPokemonIdentifierFromImg(pokemonImage);
-
-        return new ScanResult(estimatedPokemonLevel, pokemonName, candyName, pokemonHP, pokemonCP,
-                pokemonCandyAmount, pokemonUpgradeCost, pokemonUniqueIdentifier);
+    private static class AtlasLayout {
+        BinaryAtlas.Strip name;
+        BinaryAtlas.Strip candy;
+        BinaryAtlas.Strip hp;
+        BinaryAtlas.Strip cp;
+        BinaryAtlas.Strip canAffordEvolutionCost;
+        BinaryAtlas.Strip cannotAffordEvolutionCost;
     }
 }
@@ -15,7 +15,6 @@ import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.res.Configuration;
-import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.graphics.Matrix;
@@ -25,10 +24,13 @@ import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.Process;
 import android.support.annotation.ColorInt;
 import android.support.annotation.ColorRes;
 import android.support.annotation.DrawableRes;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.content.LocalBroadcastManager;
 import android.support.v7.app.NotificationCompat;
 import android.support.v7.widget.DefaultItemAnimator;
@@ -58,31 +60,53 @@ import android.widget.Toast;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.kamron.pogoiv.clipboard.ClipboardTokenHandler;
+import com.kamron.pogoiv.logic.AppraisalMasks;
 import com.kamron.pogoiv.logic.CPRange;
 import com.kamron.pogoiv.logic.Data;
+import com.kamron.pogoiv.logic.DerivedStats;
 import com.kamron.pogoiv.logic.IVCombination;
 import com.kamron.pogoiv.logic.IVScanResult;
+import com.kamron.pogoiv.logic.IVSet;
+import com.kamron.pogoiv.logic.LevelIVPossibilities;
 import com.kamron.pogoiv.logic.PokeInfoCalculator;
 import com.kamron.pogoiv.logic.PokeSpam;
 import com.kamron.pogoiv.logic.Pokemon;
 import com.kamron.pogoiv.logic.PokemonNameCorrector;
+import com.kamron.pogoiv.logic.PokemonNameTable;
 import com.kamron.pogoiv.logic.PokemonShareHandler;
 import com.kamron.pogoiv.logic.ScanContainer;
 import com.kamron.pogoiv.logic.ScanResult;
-import com.kamron.pogoiv.logic.UpgradeCost;
 import com.kamron.pogoiv.widgets.IVResultsAdapter;
 import com.kamron.pogoiv.widgets.PokemonSpinnerAdapter;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import butterknife.BindView;
 import butterknife.ButterKnife;
 import butterknife.OnClick;
 import io.apptik.widget.MultiSlider;
+import timber.log.Timber;
 
 import static com.kamron.pogoiv.GoIVSettings.APPRAISAL_WINDOW_POSITION;
 
@@ -108,18 +132,27 @@ public class Pokefly extends Service {
     private static final String KEY_SEND_INFO_CP = "key_send_info_cp";
     private static final String KEY_SEND_INFO_LEVEL = "key_send_info_level";
     private static final String KEY_SEND_SCREENSHOT_FILE = "key_send_screenshot_file";
-    private static final String KEY_SEND_INFO_CANDY_AMOUNT = "key_send_info_candy_amount";
     private static final String KEY_SEND_UPGRADE_CANDY_COST = "key_send_upgrade_candy_cost";
-    private static final String KEY_SEND_UNIQUE_ID = "key_send_unique_id";
 
     private static final String ACTION_PROCESS_BITMAP = "com.kamron.pogoiv.PROCESS_BITMAP";
     private static final String KEY_BITMAP = "bitmap";
     private static final String KEY_SCREENSHOT_FILE = "ss-file";
 
     private static final String PREF_USER_CORRECTIONS = "com.kamron.pogoiv.USER_CORRECTIONS";
+    /**
+     * The preferences file of the pokemon the user confirmed for misread nicknames, apart from the other settings.
+     */
+    private static final String PREF_POKEMON_NAME_CORRECTIONS = "com.kamron.pogoiv.POKEMON_NAME_CORRECTIONS";
+    private static final String OCR_CACHE_FILE_NAME = "ocr_cache.bin";
+    private static final String DIGIT_TEMPLATES_FILE_NAME = "digit_templates.bin";
 
     private static final int NOTIFICATION_REQ_CODE = 8959;
 
+    /**
+     * The format of the perfection percentage, only used from the main thread.
+     */
+    private static final DecimalFormat PERFECTION_FORMAT = new DecimalFormat("#.#");
+
     private static boolean running = false;
 
     private int trainerLevel = -1;
@@ -136,6 +169,52 @@ public class Pokefly extends Service {
     private OcrHelper ocr;
     private GoIVSettings settings;
 
+    /**
+     * Runs the screen grabs, OCR and name corrections of the scans, so that they don't block the UI.
+     */
+    private ListeningExecutorService scanExecutor;
+    /**
+     * Checks in parallel which of the pokemon a scan could be can have the scanned HP and CP.
+     */
+    private ExecutorService candidateExecutor;
+    /**
+     * Runs the callbacks of the scans on the main thread.
+     */
+    private Executor mainThreadExecutor;
+    /**
+     * The last scan submitted to the scan executor.
+     */
+    private ListenableFuture<CompletedScan> scanFuture;
+    /**
+     * The pokemon guessed from the last scan, on the scan executor. Used by showInfoLayout instead of guessing again.
+     */
+    private PokemonNameCorrector.PokeDist scannedPokemonGuess;
+    /**
+     * The scan of the pokemon screen started when the IV button was shown, reused if the screen didn't change when
+     * the IV button is pressed. Null if there's none.
+     */
+    private ListenableFuture<CompletedScan> preScanFuture;
+    /**
+     * The handles cancelling the OCR of the last scan and of the pre-scan, without stopping the other one.
+     */
+    private OcrHelper.ScanHandle scanHandle;
+    private OcrHelper.ScanHandle preScanHandle;
+    /**
+     * The handle of the pre-scan handed over to the last scan, whose deferred fields may still be recognized if the
+     * scan reused it. Null if there's none.
+     */
+    private OcrHelper.ScanHandle reusedScanHandle;
+    private static final int SCAN_EXECUTOR_SHUTDOWN_TIMEOUT_S = 2;
+    /**
+     * How many pokemon a scan could be are checked against the scanned HP and CP, when the name guess is wrong.
+     */
+    private static final int SCAN_CANDIDATE_COUNT = 5;
+    /**
+     * How long the threads checking the scan candidates are kept when there's no scan, so that they don't idle
+     * between scans.
+     */
+    private static final int CANDIDATE_THREAD_KEEP_ALIVE_S = 10;
+
     private Point[] area = new Point[2];
 
     private boolean infoShownSent = false;
@@ -296,8 +375,22 @@ public class Pokefly extends Service {
     private Optional<Integer> pokemonCP = Optional.absent();
     private Optional<Integer> pokemonHP = Optional.absent();
     private Optional<Integer> candyUpgradeCost = Optional.absent();
-    private String pokemonUniqueID = "";
+    /**
+     * The last scan sent to displayInfo, whose deferred fields are filled in once recognized. Null if the info
+     * wasn't scanned by this service.
+     */
+    private ScanResult scannedResult;
     private double estimatedPokemonLevel = 1.0;
+
+    /**
+     * The texts of the powerup and evolution estimate box at each level index, for the selected evolution. They're
+     * filled when the result or the selected evolution changes, so that moving the level seekbar only sets texts.
+     */
+    private String[] levelEstimateLevelTexts;
+    private String[] levelEstimateCpTexts;
+    private String[] levelEstimateHpTexts;
+    private String[] levelEstimateCandyTexts;
+    private String[] levelEstimateStardustTexts;
     private @NonNull Optional<String> screenShotPath = Optional.absent();
 
     private PokemonNameCorrector corrector;
@@ -349,9 +442,7 @@ public class Pokefly extends Service {
         intent.putExtra(KEY_SEND_INFO_CP, scanResult.getPokemonCP());
         intent.putExtra(KEY_SEND_INFO_LEVEL, scanResult.getEstimatedPokemonLevel());
         intent.putExtra(KEY_SEND_SCREENSHOT_FILE, filePath);
-        intent.putExtra(KEY_SEND_INFO_CANDY_AMOUNT, scanResult.getPokemonCandyAmount());
         intent.putExtra(KEY_SEND_UPGRADE_CANDY_COST, scanResult.getUpgradeCandyCost());
-        intent.putExtra(KEY_SEND_UNIQUE_ID, scanResult.getPokemonUniqueID());
     }
 
     public static Intent createProcessBitmapIntent(Bitmap bitmap, String file) {
@@ -367,29 +458,55 @@ public class Pokefly extends Service {
         return null;
     }
 
-    private String[] getPokemonNamesArray() {
+    private String[] getPokemonNamesArray(Optional<PokemonNameTable> pokemonNameTable) {
         if (getResources().getBoolean(R.bool.use_default_pokemonsname_as_ocrstring)) {
             //If flag ON, force to use English strings as pokemon name for OCR.
-            Resources res = getResources();
-            Configuration conf = res.getConfiguration();
-            Locale def = getResources().getConfiguration().locale;//Keep original locale
-            conf.setLocale(new Locale("en"));
-            res.updateConfiguration(conf, null);
-            String[] rtn = res.getStringArray(R.array.pokemon);
-            conf.setLocale(def);//Restore to original locale
-            res.updateConfiguration(conf, null);
-            return rtn;
+            String[] englishNames = pokemonNameTable.isPresent() ? pokemonNameTable.get().getNames("en") : null;
+            return englishNames != null ? englishNames : getPokemonNamesArray(new Locale("en"));
         }
         return getResources().getStringArray(R.array.pokemon);
     }
 
-    private String[] getPokemonDisplayNamesArray() {
+    /**
+     * Get the pokemon names bundled for a language, without changing the configuration of the app.
+     */
+    private String[] getPokemonNamesArray(Locale locale) {
+        Configuration conf = new Configuration(getResources().getConfiguration());
+        conf.setLocale(locale);
+        return createConfigurationContext(conf).getResources().getStringArray(R.array.pokemon);
+    }
+
+    /**
+     * Reads the table of the pokemon names of every bundled language, generated at build time.
+     *
+     * @return The table, or absent if it can't be read.
+     */
+    private Optional<PokemonNameTable> readPokemonNameTable() {
+        InputStream in = null;
+        try {
+            in = getAssets().open(PokemonNameTable.ASSET_NAME);
+            return Optional.of(PokemonNameTable.read(in));
+        } catch (IOException e) {
+            Timber.e(e, "Can't read the pokemon names of the other languages");
+            return Optional.absent();
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    Timber.w(e, "Can't close the pokemon name table");
+                }
+            }
+        }
+    }
+
+    private String[] getPokemonDisplayNamesArray(Optional<PokemonNameTable> pokemonNameTable) {
         if (settings.isShowTranslatedPokemonName()) {
             //If pref ON, use translated strings as pokemon name.
             return getResources().getStringArray(R.array.pokemon);
         }
         //Otherwise, use default locale's pokemon name.
-        return getPokemonNamesArray();
+        return getPokemonNamesArray(pokemonNameTable);
     }
 
     @Override
@@ -401,9 +518,11 @@ public class Pokefly extends Service {
         LocalBroadcastManager.getInstance(this).sendBroadcast(new Intent(ACTION_UPDATE_UI));
 
         settings = GoIVSettings.getInstance(this);
+        Optional<PokemonNameTable> pokemonNameTable = readPokemonNameTable();
         pokeInfoCalculator = PokeInfoCalculator.getInstance(
-                getPokemonNamesArray(),
-                getPokemonDisplayNamesArray(),
+                getPokemonNamesArray(pokemonNameTable),
+                getPokemonDisplayNamesArray(pokemonNameTable),
+                pokemonNameTable.isPresent() ? pokemonNameTable.get().getAllNames() : new String[0][],
                 getResources().getIntArray(R.array.attack),
                 getResources().getIntArray(R.array.defense),
                 getResources().getIntArray(R.array.stamina),
@@ -414,7 +533,30 @@ public class Pokefly extends Service {
         windowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
         clipboard = (ClipboardManager) getSystemService(CLIPBOARD_SERVICE);
         sharedPref = getSharedPreferences(PREF_USER_CORRECTIONS, Context.MODE_PRIVATE);
-        corrector = new PokemonNameCorrector(pokeInfoCalculator);
+        final SharedPreferences correctionsPref = getSharedPreferences(PREF_POKEMON_NAME_CORRECTIONS,
+                Context.MODE_PRIVATE);
+        corrector = new PokemonNameCorrector(pokeInfoCalculator, correctionsPref.getAll(),
+                new PokemonNameCorrector.UserCorrectionStore() {
+                    @Override public void put(String key, long value) {
+                        correctionsPref.edit().putLong(key, value).apply();
+                    }
+
+                    @Override public void remove(String key) {
+                        correctionsPref.edit().remove(key).apply();
+                    }
+                });
+        scanExecutor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
+        int candidateThreads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor candidatePool = new ThreadPoolExecutor(candidateThreads, candidateThreads,
+                CANDIDATE_THREAD_KEEP_ALIVE_S, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        candidatePool.allowCoreThreadTimeOut(true);
+        candidateExecutor = candidatePool;
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThreadExecutor = new Executor() {
+            @Override public void execute(@NonNull Runnable command) {
+                mainHandler.post(command);
+            }
+        };
 
         LocalBroadcastManager.getInstance(this).registerReceiver(displayInfo, new IntentFilter(ACTION_SEND_INFO));
         LocalBroadcastManager.getInstance(this).registerReceiver(processBitmap,
@@ -540,11 +682,63 @@ public class Pokefly extends Service {
             boolean shouldShow =
                     pixels[0] == Color.rgb(250, 250, 250) && pixels[1] == Color.rgb(28, 135, 150);
             setIVButtonDisplay(shouldShow);
+            if (shouldShow && ivButtonShown) {
+                preScanPokemon();
+            } else {
+                discardPreScan();
+            }
             return shouldShow;
         }
         return false;
     }
 
+    /**
+     * Starts scanning the pokemon screen in the background, at a low priority, so that the result is usually ready
+     * when the IV button is pressed. Replaces the previous pre-scan, since the user may have swiped to another
+     * pokemon.
+     */
+    private void preScanPokemon() {
+        if (batterySaver) {
+            return;
+        }
+        discardPreScan();
+        final ScreenGrabber grabber = screen;
+        final OcrHelper scanOcr = ocr;
+        final PokemonNameCorrector scanCorrector = corrector;
+        final ExecutorService scanCandidateExecutor = candidateExecutor;
+        final int scanTrainerLevel = trainerLevel;
+        final OcrHelper.ScanHandle handle = new OcrHelper.ScanHandle(true);
+        preScanHandle = handle;
+        preScanFuture = scanExecutor.submit(new Callable<CompletedScan>() {
+            @Override public CompletedScan call() {
+                Bitmap bmp = grabber.grabScreen();
+                if (bmp == null) {
+                    return null;
+                }
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                try {
+                    return scan(scanOcr, scanCorrector, scanCandidateExecutor, scanTrainerLevel, bmp, null, handle);
+                } finally {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_DEFAULT);
+                    bmp.recycle();
+                }
+            }
+        });
+    }
+
+    /**
+     * Discards the pre-scan, stopping it and its deferred fields if they're still running. The scan the user asked
+     * for goes on.
+     */
+    private void discardPreScan() {
+        if (preScanFuture != null) {
+            preScanFuture.cancel(false);
+            ocr.cancel(preScanHandle);
+            preScanFuture = null;
+            preScanHandle = null;
+        }
+    }
+
     private boolean infoLayoutArcPointerVisible = false;
 
     private void showInfoLayoutArcPointer() {
@@ -581,6 +775,19 @@ public class Pokefly extends Service {
         setIVButtonDisplay(false);
         hideInfoLayoutArcPointer();
 
+        //The scan thread may still be using the OCR engines, stop it before ending them.
+        cancelScan();
+        scanExecutor.shutdownNow();
+        try {
+            if (!scanExecutor.awaitTermination(SCAN_EXECUTOR_SHUTDOWN_TIMEOUT_S, TimeUnit.SECONDS)) {
+                Timber.w("The scan thread didn't stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scanExecutor = null;
+        candidateExecutor.shutdownNow();
+        candidateExecutor = null;
         ocr.exit();
         //Now ocr contains an invalid instance hence let's clear it.
         ocr = null;
@@ -907,7 +1114,7 @@ public class Pokefly extends Service {
             @Override
             public void onProgressChanged(SeekBar seekBar, int i, boolean fromUser) {
                 if (fromUser) {
-                    populateAdvancedInformation(ScanContainer.scanContainer.currScan);
+                    showLevelEstimates();
                 }
             }
 
@@ -1022,6 +1229,7 @@ public class Pokefly extends Service {
      */
     public void shareScannedPokemonInformation() {
         PokemonShareHandler communicator = new PokemonShareHandler();
+        String pokemonUniqueID = scannedResult != null ? scannedResult.getPokemonUniqueID() : "";
         communicator.spreadResultIntent(this, ScanContainer.scanContainer.currScan, pokemonUniqueID);
         cancelInfoDialog();
     }
@@ -1132,7 +1340,7 @@ public class Pokefly extends Service {
     @OnClick(R.id.btnIncrementLevelExpanded)
     public void incrementLevelExpanded() {
         expandedLevelSeekbar.setProgress(expandedLevelSeekbar.getProgress() + 1);
-        populateAdvancedInformation(ScanContainer.scanContainer.currScan);
+        showLevelEstimates();
     }
 
     @OnClick(R.id.explainCPPercentageComparedToMaxIV)
@@ -1143,37 +1351,45 @@ public class Pokefly extends Service {
     @OnClick(R.id.btnDecrementLevelExpanded)
     public void decrementLevelExpanded() {
         expandedLevelSeekbar.setProgress(expandedLevelSeekbar.getProgress() - 1);
-        populateAdvancedInformation(ScanContainer.scanContainer.currScan);
+        showLevelEstimates();
     }
 
     /**
      * Parse numeric inputs.
      *
-     * @return true if the numeric inputs are valid.
+     * @return true if at least one of the hp and cp is valid, the ivs can then be calculated from it.
      */
     private boolean parseNumericInputs() {
-        try {
-            pokemonHP = Optional.of(Integer.parseInt(pokemonHPEdit.getText().toString()));
-            pokemonCP = Optional.of(Integer.parseInt(pokemonCPEdit.getText().toString()));
-        } catch (NumberFormatException e) {
+        pokemonHP = parseOptionalInt(pokemonHPEdit);
+        pokemonCP = parseOptionalInt(pokemonCPEdit);
+        if (!pokemonHP.isPresent() && !pokemonCP.isPresent()) {
             return false;
         }
         //do not require pokemon candy to be filled
         try {
             pokemonCandy = Optional.of(Integer.parseInt(pokemonCandyEdit.getText().toString()));
         } catch (NumberFormatException e) {
+            //If the candy amount isn't recognized yet, fillDeferredFields fills it in once it is.
             pokemonCandy = Optional.absent();
         }
         return true;
     }
 
+    private static Optional<Integer> parseOptionalInt(EditText edit) {
+        try {
+            return Optional.of(Integer.parseInt(edit.getText().toString()));
+        } catch (NumberFormatException e) {
+            return Optional.absent();
+        }
+    }
+
     @OnClick(R.id.btnCheckIv)
     /**
      * Method called when user presses "check iv" in the input screen, which takes the user to the result screen
      */
     public void checkIv() {
         //warn user and stop calculation if scan/input failed/is wrong
-        if (!parseNumericInputs() || !pokemonHP.isPresent() || !pokemonCP.isPresent()) {
+        if (!parseNumericInputs()) {
             Toast.makeText(this, R.string.missing_inputs, Toast.LENGTH_SHORT).show();
             return;
         }
@@ -1184,10 +1400,16 @@ public class Pokefly extends Service {
         if (pokemon == null) {
             return;
         }
+        saveUserCorrection(pokemon);
 
-
-        IVScanResult ivScanResult = pokeInfoCalculator.getIVPossibilities(pokemon, estimatedPokemonLevel,
-                pokemonHP.get(), pokemonCP.get());
+        IVScanResult ivScanResult;
+        if (pokemonHP.isPresent() && pokemonCP.isPresent()) {
+            moveArcPointerToConsistentLevel(pokemon);
+            ivScanResult = pokeInfoCalculator.getIVPossibilities(pokemon, estimatedPokemonLevel,
+                    pokemonHP.get(), pokemonCP.get());
+        } else {
+            ivScanResult = getIVPossibilitiesFromPartialInputs(pokemon);
+        }
 
         refineByAvailableAppraisalInfo(ivScanResult);
 
@@ -1204,6 +1426,67 @@ public class Pokefly extends Service {
         transitionOverlayViewFromInputToResults();
     }
 
+    /**
+     * Remembers which pokemon the user confirmed for the scanned nickname and candy name, so that the next scan of
+     * the same pokemon gets it right away.
+     */
+    private void saveUserCorrection(Pokemon pokemon) {
+        if (pokemonName != null) {
+            corrector.putUserCorrection(pokemonName, candyName, pokemon);
+        }
+    }
+
+    /**
+     * Calculates the ivs from whichever of the hp and cp is known, so that the user doesn't have to type the other
+     * one, and tells the user what the result was calculated from. When the scan could only read the current hp,
+     * it's used as a lower bound of the hp.
+     */
+    private IVScanResult getIVPossibilitiesFromPartialInputs(Pokemon pokemon) {
+        int lowestHP = 0;
+        int highestHP = Integer.MAX_VALUE;
+        if (pokemonHP.isPresent()) {
+            lowestHP = pokemonHP.get();
+            highestHP = pokemonHP.get();
+        } else if (scannedResult != null && !scannedResult.getPokemonHP().isPresent()) {
+            lowestHP = scannedResult.getPokemonMinHP().or(0);
+        }
+        IVScanResult ivScanResult = pokeInfoCalculator.getIVPossibilities(pokemon, estimatedPokemonLevel, lowestHP,
+                highestHP, pokemonCP);
+
+        int message;
+        switch (ivScanResult.usedInputs) {
+            case CP_AND_HP_RANGE:
+                message = R.string.partial_inputs_cp_and_min_hp;
+                break;
+            case CP_ONLY:
+                message = R.string.partial_inputs_cp_only;
+                break;
+            default:
+                message = R.string.partial_inputs_hp_only;
+        }
+        Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+        return ivScanResult;
+    }
+
+    /**
+     * Moves the arc pointer to the closest level which can give the input hp and cp, if the current level can't.
+     * The level is read from a single pixel of the arc, so it's sometimes a half level off: the levels next to it
+     * are checked first, then every level the trainer level allows.
+     */
+    private void moveArcPointerToConsistentLevel(Pokemon pokemon) {
+        int levelIdx = Data.levelToLevelIdx(estimatedPokemonLevel);
+        LevelIVPossibilities possibilities = pokeInfoCalculator.getIVPossibilitiesAtLevels(pokemon, levelIdx - 1,
+                levelIdx + 1, pokemonHP.get(), pokemonCP.get());
+        if (possibilities.isEmpty()) {
+            possibilities = pokeInfoCalculator.getIVPossibilitiesAtLevels(pokemon, 0,
+                    Data.trainerLevelToMaxPokeLevelIdx(trainerLevel), pokemonHP.get(), pokemonCP.get());
+        }
+        Optional<Double> consistentLevel = possibilities.getConsistentLevel(estimatedPokemonLevel);
+        if (consistentLevel.isPresent() && consistentLevel.get() != estimatedPokemonLevel) {
+            estimatedPokemonLevel = consistentLevel.get();
+            adjustArcPointerBar(estimatedPokemonLevel);
+        }
+    }
 
     /**
      * Closes the android keyboard... But this method only works if focus is on a direct child of infolayout.
@@ -1276,21 +1559,14 @@ public class Pokefly extends Service {
 
     /**
      * Refines the combinations in an ivscanresult by reading the input
-     * in the appraisalbox and calling the appropriate methods in ivscanresults.refineX
+     * in the appraisalbox, combined into a single mask of the matching combinations
      *
      * @param ivScanResult the scan result to refine
      */
     private void refineByAvailableAppraisalInfo(IVScanResult ivScanResult) {
-        if (attCheckbox.isChecked() || defCheckbox.isChecked() || staCheckbox.isChecked()) {
-            ivScanResult.refineByHighest(attCheckbox.isChecked(), defCheckbox.isChecked(), staCheckbox.isChecked());
-        }
-
-        if (appraisalPercentageRange.getSelectedItemPosition() != 0) {
-            ivScanResult.refineByAppraisalPercentageRange(appraisalPercentageRange.getSelectedItemPosition());
-        }
-        if (appraisalIvRange.getSelectedItemPosition() != 0) {
-            ivScanResult.refineByAppraisalIVRange(appraisalIvRange.getSelectedItemPosition());
-        }
+        ivScanResult.refineByMask(AppraisalMasks.getMask(attCheckbox.isChecked(), defCheckbox.isChecked(),
+                staCheckbox.isChecked(), appraisalPercentageRange.getSelectedItemPosition(),
+                appraisalIvRange.getSelectedItemPosition()));
     }
 
     /**
@@ -1335,7 +1611,6 @@ public class Pokefly extends Service {
      * Sets all the information in the result box.
      */
     private void populateResultsBox(IVScanResult ivScanResult) {
-        ivScanResult.sortCombinations();
         populateResultsHeader(ivScanResult);
 
 
@@ -1444,13 +1719,14 @@ public class Pokefly extends Service {
         llMaxIV.setVisibility(View.GONE);
         llMinIV.setVisibility(View.GONE);
         tvAvgIV.setText(getString(R.string.iv));
-        resultsAttack.setText(String.valueOf(ivScanResult.iVCombinations.get(0).att));
-        resultsDefense.setText(String.valueOf(ivScanResult.iVCombinations.get(0).def));
-        resultsHP.setText(String.valueOf(ivScanResult.iVCombinations.get(0).sta));
+        IVCombination ivCombination = ivScanResult.iVCombinations.first();
+        resultsAttack.setText(String.valueOf(ivCombination.att));
+        resultsDefense.setText(String.valueOf(ivCombination.def));
+        resultsHP.setText(String.valueOf(ivCombination.sta));
 
-        GuiUtil.setTextColorByIV(resultsAttack, ivScanResult.iVCombinations.get(0).att);
-        GuiUtil.setTextColorByIV(resultsDefense, ivScanResult.iVCombinations.get(0).def);
-        GuiUtil.setTextColorByIV(resultsHP, ivScanResult.iVCombinations.get(0).sta);
+        GuiUtil.setTextColorByIV(resultsAttack, ivCombination.att);
+        GuiUtil.setTextColorByIV(resultsDefense, ivCombination.def);
+        GuiUtil.setTextColorByIV(resultsHP, ivCombination.sta);
 
         llSingleMatch.setVisibility(View.VISIBLE);
         llMultipleIVMatches.setVisibility(View.GONE);
@@ -1475,20 +1751,63 @@ public class Pokefly extends Service {
 
     /**
      * Sets the growth estimate text boxes to correpond to the
-     * pokemon evolution and level set by the user.
+     * pokemon evolution and level set by the user. The texts of every level are filled for the selected evolution,
+     * so that moving the level seekbar afterwards only goes through showLevelEstimates.
      */
     private void populateAdvancedInformation(IVScanResult ivScanResult) {
-        double selectedLevel = seekbarProgressToLevel(expandedLevelSeekbar.getProgress());
         Pokemon selectedPokemon = initPokemonSpinnerIfNeeded(ivScanResult.pokemon);
 
-        setEstimateCpTextBox(ivScanResult, selectedLevel, selectedPokemon);
-        setEstimateHPTextBox(ivScanResult, selectedLevel, selectedPokemon);
+        fillLevelEstimates(ivScanResult, selectedPokemon);
         setPokemonPerfectionPercentageText(ivScanResult, selectedPokemon);
-        setEstimateCostTextboxes(ivScanResult, selectedLevel, selectedPokemon);
-        exResLevel.setText(String.valueOf(selectedLevel));
-        setEstimateLevelTextColor(selectedLevel);
-
         setAndCalculatePokeSpamText(ivScanResult);
+        showLevelEstimates();
+    }
+
+    /**
+     * Fills the expected cp, hp and costs texts of the selected evolution at every level index.
+     *
+     * @param ivScanResult    the ivscanresult of the current pokemon
+     * @param selectedPokemon The goal pokemon evolution he ivScanresult pokemon should reach
+     */
+    private void fillLevelEstimates(IVScanResult ivScanResult, Pokemon selectedPokemon) {
+        DerivedStats derivedStats = ivScanResult.getDerivedStats(pokeInfoCalculator);
+        int oldHP = derivedStats.getHPAtLevel(ivScanResult.pokemon, estimatedPokemonLevel);
+        int estimatedLevelIdx = Data.levelToLevelIdx(estimatedPokemonLevel);
+        int evolutionCandyCost = pokeInfoCalculator.getCandyCostForEvolution(ivScanResult.pokemon, selectedPokemon);
+
+        int levelIdxCount = Data.getLevelIdxCount();
+        levelEstimateLevelTexts = new String[levelIdxCount];
+        levelEstimateCpTexts = new String[levelIdxCount];
+        levelEstimateHpTexts = new String[levelIdxCount];
+        levelEstimateCandyTexts = new String[levelIdxCount];
+        levelEstimateStardustTexts = new String[levelIdxCount];
+        for (int levelIdx = 0; levelIdx < levelIdxCount; levelIdx++) {
+            double level = Data.levelIdxToLevel(levelIdx);
+            levelEstimateLevelTexts[levelIdx] = String.valueOf(level);
+            levelEstimateCpTexts[levelIdx] = getEstimateCpText(ivScanResult, derivedStats, level, selectedPokemon);
+            levelEstimateHpTexts[levelIdx] = getEstimateHPText(derivedStats, level, selectedPokemon, oldHP);
+            levelEstimateCandyTexts[levelIdx] = String.valueOf(
+                    Data.getPowerUpCandyCost(estimatedLevelIdx, levelIdx) + evolutionCandyCost);
+            levelEstimateStardustTexts[levelIdx] = String.valueOf(
+                    Data.getPowerUpStardustCost(estimatedLevelIdx, levelIdx));
+        }
+    }
+
+    /**
+     * Shows the texts filled by fillLevelEstimates for the level of the seekbar.
+     */
+    private void showLevelEstimates() {
+        if (levelEstimateLevelTexts == null) {
+            return;
+        }
+        double selectedLevel = seekbarProgressToLevel(expandedLevelSeekbar.getProgress());
+        int levelIdx = Data.levelToLevelIdx(selectedLevel);
+        exResultCP.setText(levelEstimateCpTexts[levelIdx]);
+        exResultHP.setText(levelEstimateHpTexts[levelIdx]);
+        exResCandy.setText(levelEstimateCandyTexts[levelIdx]);
+        exResStardust.setText(levelEstimateStardustTexts[levelIdx]);
+        exResLevel.setText(levelEstimateLevelTexts[levelIdx]);
+        setEstimateLevelTextColor(selectedLevel);
     }
 
     /**
@@ -1498,29 +1817,26 @@ public class Pokefly extends Service {
      * @param selectedPokemon The pokemon to compare selected iv with max iv to.
      */
     private void setPokemonPerfectionPercentageText(IVScanResult ivScanResult, Pokemon selectedPokemon) {
-        CPRange cpRange = pokeInfoCalculator.getCpRangeAtLevel(selectedPokemon,
-                ivScanResult.getCombinationLowIVs(), ivScanResult.getCombinationHighIVs(), 40);
-        double maxCP = pokeInfoCalculator.getCpRangeAtLevel(selectedPokemon,
-                IVCombination.MAX, IVCombination.MAX, 40).high;
+        DerivedStats derivedStats = ivScanResult.getDerivedStats(pokeInfoCalculator);
+        CPRange cpRange = derivedStats.getCpRangeAtLevel(selectedPokemon, 40);
+        double maxCP = derivedStats.getPerfectCpAtLevel(selectedPokemon, 40);
         double perfection = (100.0 * cpRange.getFloatingAvg()) / maxCP;
-        DecimalFormat df = new DecimalFormat("#.#");
-        String perfectionString = df.format(perfection) + "%";
+        String perfectionString = PERFECTION_FORMAT.format(perfection) + "%";
         exResultPercentPerfection.setText(perfectionString);
     }
 
     /**
-     * Sets the "expected HP  textview" to the estimat HP in the powerup and evolution estimate box.
+     * Get the "expected HP" text of the powerup and evolution estimate box.
      *
-     * @param ivScanResult  the ivscanresult of the current pokemon
      * @param selectedLevel The goal level the pokemon in ivScanresult pokemon should reach
+     * @param oldHP         The hp of the pokemon at its current level
      */
-    private void setEstimateHPTextBox(IVScanResult ivScanResult, double selectedLevel, Pokemon selectedPokemon) {
-        int newHP = pokeInfoCalculator.getHPAtLevel(ivScanResult, selectedLevel, selectedPokemon);
-        int oldHP = pokeInfoCalculator.getHPAtLevel(ivScanResult, estimatedPokemonLevel, ivScanResult.pokemon);
+    private static String getEstimateHPText(DerivedStats derivedStats, double selectedLevel, Pokemon selectedPokemon,
+                                            int oldHP) {
+        int newHP = derivedStats.getHPAtLevel(selectedPokemon, selectedLevel);
         int hpDiff = newHP - oldHP;
         String sign = (hpDiff >= 0) ? "+" : ""; //add plus in front if positive.
-        String hpText = newHP + " (" + sign + hpDiff + ")";
-        exResultHP.setText(hpText);
+        return newHP + " (" + sign + hpDiff + ")";
     }
 
     /**
@@ -1538,6 +1854,14 @@ public class Pokefly extends Service {
                 return;
             }
 
+            if (!pokemonCandy.isPresent() && scannedResult != null
+                    && !scannedResult.getPokemonCandyAmountFuture().isDone()) {
+                //Shown again by fillDeferredFields once the candy amount is recognized.
+                exResPokeSpam.setText(getString(R.string.scan_field_pending));
+                pokeSpamView.setVisibility(View.VISIBLE);
+                return;
+            }
+
             PokeSpam pokeSpamCalculator = new PokeSpam(pokemonCandy.or(0), ivScanResult.pokemon.candyEvolutionCost);
             String text = getString(R.string.pokespam_formatted_message,
                     pokeSpamCalculator.getTotalEvolvable(), pokeSpamCalculator.getEvolveRows(),
@@ -1552,45 +1876,31 @@ public class Pokefly extends Service {
 
 
     /**
-     * Sets the "expected cp textview" to (+x) or (-y) in the powerup and evolution estimate box depending on what's
+     * Get the "expected cp" text of the powerup and evolution estimate box, with (+x) or (-y) depending on what's
      * appropriate.
      *
      * @param ivScanResult    the ivscanresult of the current pokemon
      * @param selectedLevel   The goal level the pokemon in ivScanresult pokemon should reach
      * @param selectedPokemon The goal pokemon evolution he ivScanresult pokemon should reach
      */
-    private void setEstimateCpTextBox(IVScanResult ivScanResult, double selectedLevel, Pokemon selectedPokemon) {
-        CPRange expectedRange = pokeInfoCalculator.getCpRangeAtLevel(selectedPokemon,
-                ivScanResult.getCombinationLowIVs(), ivScanResult.getCombinationHighIVs(), selectedLevel);
+    private static String getEstimateCpText(IVScanResult ivScanResult, DerivedStats derivedStats,
+                                            double selectedLevel, Pokemon selectedPokemon) {
+        CPRange expectedRange = derivedStats.getCpRangeAtLevel(selectedPokemon, selectedLevel);
         int realCP = ivScanResult.scannedCP;
         int expectedAverage = expectedRange.getAvg();
 
         String exResultCPStr = String.valueOf(expectedAverage);
 
-        int diffCP = expectedAverage - realCP;
-        if (diffCP >= 0) {
-            exResultCPStr += " (+" + diffCP + ")";
-        } else {
-            exResultCPStr += " (" + diffCP + ")";
+        //Without the cp, there's nothing to compare the expected cp to.
+        if (ivScanResult.usedInputs.usesCP) {
+            int diffCP = expectedAverage - realCP;
+            if (diffCP >= 0) {
+                exResultCPStr += " (+" + diffCP + ")";
+            } else {
+                exResultCPStr += " (" + diffCP + ")";
+            }
         }
-        exResultCP.setText(exResultCPStr);
-    }
-
-    /**
-     * Sets the candy cost and stardust cost textfields in the powerup and evolution estimate box. The textviews are
-     * populated with the cost in dust and candy required to go from the pokemon in ivscanresult to the desired
-     * selecterdLevel and selectedPokemon.
-     *
-     * @param ivScanResult    The pokemon to base the estimate on.
-     * @param selectedLevel   The level the pokemon needs to reach.
-     * @param selectedPokemon The target pokemon. (example, ivScan pokemon can be weedle, selected can be beedrill.)
-     */
-    private void setEstimateCostTextboxes(IVScanResult ivScanResult, double selectedLevel, Pokemon selectedPokemon) {
-        UpgradeCost cost = pokeInfoCalculator.getUpgradeCost(selectedLevel, estimatedPokemonLevel);
-        int evolutionCandyCost = pokeInfoCalculator.getCandyCostForEvolution(ivScanResult.pokemon, selectedPokemon);
-        String candyCostText = cost.candy + evolutionCandyCost + "";
-        exResCandy.setText(candyCostText);
-        exResStardust.setText(String.valueOf(cost.dust));
+        return exResultCPStr;
     }
 
     /**
@@ -1622,7 +1932,7 @@ public class Pokefly extends Service {
      * @param scannedPokemon the pokemon to use for selecting a good default, if init is performed
      */
     private Pokemon initPokemonSpinnerIfNeeded(Pokemon scannedPokemon) {
-        ArrayList<Pokemon> evolutionLine = pokeInfoCalculator.getEvolutionLine(scannedPokemon);
+        List<Pokemon> evolutionLine = pokeInfoCalculator.getEvolutionLine(scannedPokemon);
         extendedEvolutionSpinnerAdapter.updatePokemonList(evolutionLine);
 
         int spinnerSelectionIdx = extendedEvolutionSpinner.getSelectedItemPosition();
@@ -1684,6 +1994,7 @@ public class Pokefly extends Service {
      * resets the info dialogue to its default state
      */
     public void cancelInfoDialog() {
+        cancelScan();
         hideInfoLayoutArcPointer();
         attCheckbox.setChecked(false);
         defCheckbox.setChecked(false);
@@ -1713,7 +2024,7 @@ public class Pokefly extends Service {
         IVScanResult thisScan = ScanContainer.scanContainer.currScan;
         IVScanResult prevScan = ScanContainer.scanContainer.prevScan;
         if (prevScan != null) {
-            ArrayList<IVCombination> newResult = ScanContainer.scanContainer.getLatestIVIntersection();
+            IVSet newResult = ScanContainer.scanContainer.getLatestIVIntersection();
             // Since the only change was an intersection, if the sizes are equal the content's also equal.
             boolean changed = newResult.size() != thisScan.iVCombinations.size();
             thisScan.iVCombinations = newResult;
@@ -1741,6 +2052,8 @@ public class Pokefly extends Service {
      */
     private void resetPokeflyStateMachine() {
         receivedInfo = false;
+        scannedPokemonGuess = null;
+        scannedResult = null;
         infoShownSent = false;
     }
 
@@ -1791,8 +2104,11 @@ public class Pokefly extends Service {
         if (!infoShownReceived) {
 
             infoShownReceived = true;
-            PokemonNameCorrector.PokeDist possiblePoke = corrector.getPossiblePokemon(pokemonName, candyName,
-                    candyUpgradeCost);
+            PokemonNameCorrector.PokeDist possiblePoke = scannedPokemonGuess;
+            scannedPokemonGuess = null;
+            if (possiblePoke == null) {
+                possiblePoke = corrector.getPossiblePokemon(pokemonName, candyName, candyUpgradeCost);
+            }
             initialButtonsLayout.setVisibility(View.VISIBLE);
             onCheckButtonsLayout.setVisibility(View.GONE);
 
@@ -1852,45 +2168,229 @@ public class Pokefly extends Service {
             CopyUtils.copyAssetFolder(getAssets(), "tessdata", extdir + "/tessdata");
         }
 
-        ocr = OcrHelper.init(extdir, displayMetrics.widthPixels, displayMetrics.heightPixels,
+        ocr = OcrHelper.init(extdir, new File(getFilesDir(), OCR_CACHE_FILE_NAME),
+                new File(getFilesDir(), DIGIT_TEMPLATES_FILE_NAME),
+                displayMetrics.widthPixels, displayMetrics.heightPixels,
                 pokeInfoCalculator.get(28).name,
                 pokeInfoCalculator.get(31).name,
-                settings.isPokeSpamEnabled());
+                settings.isPokeSpamEnabled(),
+                getResources().getIntArray(R.array.evolutionCandyCost));
     }
 
 
     /**
      * scanPokemon
-     * Performs OCR on an image of a pokemon and sends the pulled info to PokeFly to display.
+     * Performs OCR on an image of a pokemon on the scan executor, and sends the pulled info to PokeFly to display.
+     * An intent is always sent when the scan completes, even if it failed or was cancelled, to avoid the
+     * application hanging.
      *
-     * @param pokemonImage   The image of the pokemon
+     * @param pokemonImage   Gives the image of the pokemon, called on the scan executor. The image is recycled once
+     *                       scanned. It can give null if there is no image to scan.
      * @param screenShotPath The screenshot path if it is a file, used to delete once checked
      */
-    private void scanPokemon(Bitmap pokemonImage, @NonNull Optional<String> screenShotPath) {
-        //WARNING: this method *must* always send an intent at the end, no matter what, to avoid the application
-        // hanging.
-        Intent info = Pokefly.createNoInfoIntent();
+    private void scanPokemon(final Callable<Bitmap> pokemonImage, @NonNull final Optional<String> screenShotPath) {
+        //The scan must not depend on the fields of the service, which may be destroyed in the meantime.
+        final OcrHelper scanOcr = ocr;
+        final PokemonNameCorrector scanCorrector = corrector;
+        final ExecutorService scanCandidateExecutor = candidateExecutor;
+        final int scanTrainerLevel = trainerLevel;
+        //A pre-scan still running was started on a screen which may have changed since, and would make this scan
+        //wait behind it on the single scan thread at a low priority. It's dropped instead: the fields it already
+        //recognized are cached, so this scan doesn't recognize them again.
+        if (preScanFuture != null && !preScanFuture.isDone()) {
+            discardPreScan();
+        }
+        //A finished pre-scan is over when this scan runs on the single scan thread.
+        final ListenableFuture<CompletedScan> preScan = preScanFuture;
+        final OcrHelper.ScanHandle preScanHandedOver = preScanHandle;
+        preScanFuture = null;
+        preScanHandle = null;
+        reusedScanHandle = preScanHandedOver;
+        final OcrHelper.ScanHandle handle = new OcrHelper.ScanHandle(false);
+        scanHandle = handle;
+        scanFuture = scanExecutor.submit(new Callable<CompletedScan>() {
+            @Override public CompletedScan call() throws Exception {
+                Bitmap bmp = pokemonImage.call();
+                if (bmp == null) {
+                    return null;
+                }
+                try {
+                    CompletedScan reusable = getSuccessfulScan(preScan);
+                    if (reusable != null && reusable.trainerLevel != scanTrainerLevel) {
+                        reusable = null;
+                    }
+                    CompletedScan completed = scan(scanOcr, scanCorrector, scanCandidateExecutor, scanTrainerLevel,
+                            bmp, reusable, handle);
+                    if (preScanHandedOver != null && (reusable == null || completed != reusable)) {
+                        //The screen changed, the deferred fields of the pre-scan won't be used.
+                        scanOcr.cancel(preScanHandedOver);
+                    }
+                    return completed;
+                } finally {
+                    bmp.recycle();
+                }
+            }
+        });
+        Futures.addCallback(scanFuture, new FutureCallback<CompletedScan>() {
+            @Override public void onSuccess(CompletedScan scan) {
+                Intent info = Pokefly.createNoInfoIntent();
+                if (scan != null) {
+                    if (scan.result.isFailed()) {
+                        Toast.makeText(Pokefly.this, getString(R.string.scan_pokemon_failed), Toast.LENGTH_SHORT)
+                                .show();
+                    }
+                    scannedPokemonGuess = scan.guess;
+                    scannedResult = scan.result;
+                    Pokefly.populateInfoIntent(info, scan.result, screenShotPath);
+                }
+                LocalBroadcastManager.getInstance(Pokefly.this).sendBroadcast(info);
+            }
+
+            @Override public void onFailure(@NonNull Throwable t) {
+                if (!(t instanceof CancellationException)) {
+                    Timber.e(t, "Scan failed");
+                }
+                LocalBroadcastManager.getInstance(Pokefly.this).sendBroadcast(Pokefly.createNoInfoIntent());
+            }
+        }, mainThreadExecutor);
+    }
+
+    /**
+     * Scans a screenshot of a pokemon and guesses which pokemon it is. If the scanned HP and CP are impossible for
+     * the best name guess, the next most likely pokemon which can have them is picked instead.
+     *
+     * @param reusable A previous scan at the same trainer level, returned as is if it's of the same screen, or null.
+     * @param handle   The handle to cancel the OCR of the scan with.
+     */
+    private static CompletedScan scan(OcrHelper scanOcr, PokemonNameCorrector scanCorrector,
+                                      ExecutorService scanCandidateExecutor, int scanTrainerLevel, Bitmap bmp,
+                                      @Nullable CompletedScan reusable, OcrHelper.ScanHandle handle) {
+        ScanResult res = scanOcr.scanPokemon(bmp, scanTrainerLevel, reusable != null ? reusable.result : null,
+                handle);
+        if (reusable != null && res == reusable.result) {
+            return reusable;
+        }
+        List<PokemonNameCorrector.PokeDist> candidates = scanCorrector.getPossiblePokemons(res.getPokemonName(),
+                res.getCandyName(), res.getUpgradeCandyCost(), SCAN_CANDIDATE_COUNT);
+        PokemonNameCorrector.PokeDist guess = candidates.get(0);
+        if (res.getPokemonHP().isPresent() && res.getPokemonCP().isPresent()) {
+            try {
+                List<PokemonNameCorrector.PokeDist> feasible = PokeInfoCalculator.getInstance().getFeasibleCandidates(
+                        candidates, res.getEstimatedPokemonLevel(), res.getPokemonHP().get(),
+                        res.getPokemonCP().get(), scanCandidateExecutor);
+                if (!feasible.isEmpty()) {
+                    guess = feasible.get(0);
+                }
+            } catch (InterruptedException e) {
+                //The scan is being cancelled, the name guess will do.
+                Thread.currentThread().interrupt();
+            } catch (RejectedExecutionException e) {
+                //The service is being destroyed while the scan is still running, the name guess will do.
+                Timber.d(e, "Scan candidates not checked, the service is being destroyed");
+            }
+        }
+        return new CompletedScan(res, guess, scanTrainerLevel);
+    }
+
+    /**
+     * Get the result of a finished scan.
+     *
+     * @return The scan, or null if there's none, it isn't over, or it failed.
+     */
+    private static CompletedScan getSuccessfulScan(ListenableFuture<CompletedScan> scan) {
+        if (scan == null || !scan.isDone() || scan.isCancelled()) {
+            return null;
+        }
         try {
-            ScanResult res = ocr.scanPokemon(pokemonImage, trainerLevel);
-            if (res.isFailed()) {
-                Toast.makeText(Pokefly.this, getString(R.string.scan_pokemon_failed), Toast.LENGTH_SHORT).show();
+            return Futures.getUnchecked(scan);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Fills the candy amount in the info layout once it is recognized, unless the user already typed one or moved
+     * on to another scan. Until then the candy amount shows a placeholder, and sharing is disabled until the unique
+     * ID is recognized, so that the main thread never waits for them.
+     *
+     * @param scan The scan shown in the info layout, or null if the info wasn't scanned.
+     */
+    private void fillDeferredFields(@Nullable final ScanResult scan) {
+        if (scan == null) {
+            pokemonCandyEdit.setHint(null);
+            shareWithStorimod.setEnabled(true);
+            return;
+        }
+        pokemonCandyEdit.setHint(R.string.scan_field_pending);
+        Futures.addCallback(scan.getPokemonCandyAmountFuture(), new FutureCallback<Optional<Integer>>() {
+            @Override public void onSuccess(Optional<Integer> candyAmount) {
+                if (scan != scannedResult) {
+                    return;
+                }
+                pokemonCandyEdit.setHint(null);
+                if (pokemonCandyEdit.getText().length() == 0) {
+                    pokemonCandy = candyAmount;
+                    pokemonCandyEdit.setText(optionalIntToString(candyAmount));
+                    if (resultsBox.getVisibility() == View.VISIBLE && ScanContainer.scanContainer.currScan != null) {
+                        setAndCalculatePokeSpamText(ScanContainer.scanContainer.currScan);
+                    }
+                }
             }
-            Pokefly.populateInfoIntent(info, res, screenShotPath);
-        } finally {
-            LocalBroadcastManager.getInstance(Pokefly.this).sendBroadcast(info);
+
+            @Override public void onFailure(@NonNull Throwable t) {
+                //The candy amount is left for the user to fill.
+                if (scan == scannedResult) {
+                    pokemonCandyEdit.setHint(null);
+                }
+            }
+        }, mainThreadExecutor);
+
+        shareWithStorimod.setEnabled(false);
+        Futures.addCallback(scan.getPokemonUniqueIDFuture(), new FutureCallback<String>() {
+            @Override public void onSuccess(String uniqueID) {
+                if (scan == scannedResult) {
+                    shareWithStorimod.setEnabled(true);
+                }
+            }
+
+            @Override public void onFailure(@NonNull Throwable t) {
+                //The result is shared without the unique ID.
+                if (scan == scannedResult) {
+                    shareWithStorimod.setEnabled(true);
+                }
+            }
+        }, mainThreadExecutor);
+    }
+
+    /**
+     * Cancels the scan in progress, if any. Its intent is still sent, without any info.
+     */
+    private void cancelScan() {
+        discardPreScan();
+        if (scanFuture != null) {
+            scanFuture.cancel(false);
+            scanFuture = null;
+        }
+        if (ocr != null && scanHandle != null) {
+            ocr.cancel(scanHandle);
+        }
+        if (ocr != null && reusedScanHandle != null) {
+            ocr.cancel(reusedScanHandle);
         }
+        scanHandle = null;
+        reusedScanHandle = null;
     }
 
     /**
      * Called by intent from pokefly, captures the screen and runs it through scanPokemon.
      */
     private void takeScreenshot() {
-        Bitmap bmp = screen.grabScreen();
-        if (bmp == null) {
-            return;
-        }
-        scanPokemon(bmp, Optional.<String>absent());
-        bmp.recycle();
+        final ScreenGrabber grabber = screen;
+        scanPokemon(new Callable<Bitmap>() {
+            @Override public Bitmap call() {
+                return grabber.grabScreen();
+            }
+        }, Optional.<String>absent());
     }
 
     /**
@@ -1900,7 +2400,7 @@ public class Pokefly extends Service {
     private final BroadcastReceiver processBitmap = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
-            Bitmap bitmap = (Bitmap) intent.getParcelableExtra(KEY_BITMAP);
+            final Bitmap bitmap = (Bitmap) intent.getParcelableExtra(KEY_BITMAP);
             if (bitmap == null) {
                 return;
             }
@@ -1912,18 +2412,21 @@ public class Pokefly extends Service {
                 screenShotPath = Optional.absent();
             }
 
-            // this should allow processing of images where the displaymetrics don't match, for example a different
-            // phone, it is known that the red dot might not display correctly.
-            if (displayMetrics.heightPixels != bitmap.getHeight() || displayMetrics.widthPixels != bitmap.getWidth()) {
-                Matrix matrix = new Matrix();
-                float ratio = displayMetrics.widthPixels / (float) bitmap.getWidth();
-                matrix.postScale(ratio, ratio);
-                bitmap = Bitmap.createBitmap(bitmap, 0, 0, displayMetrics.widthPixels, displayMetrics.heightPixels,
-                        matrix, true);
-            }
-
-            scanPokemon(bitmap, screenShotPath);
-            bitmap.recycle();
+            final int widthPixels = displayMetrics.widthPixels;
+            final int heightPixels = displayMetrics.heightPixels;
+            scanPokemon(new Callable<Bitmap>() {
+                @Override public Bitmap call() {
+                    // this should allow processing of images where the displaymetrics don't match, for example a
+                    // different phone, it is known that the red dot might not display correctly.
+                    if (heightPixels != bitmap.getHeight() || widthPixels != bitmap.getWidth()) {
+                        Matrix matrix = new Matrix();
+                        float ratio = widthPixels / (float) bitmap.getWidth();
+                        matrix.postScale(ratio, ratio);
+                        return Bitmap.createBitmap(bitmap, 0, 0, widthPixels, heightPixels, matrix, true);
+                    }
+                    return bitmap;
+                }
+            }, screenShotPath);
         }
     };
 
@@ -1950,19 +2453,14 @@ public class Pokefly extends Service {
                             (Optional<Integer>) intent.getSerializableExtra(KEY_SEND_INFO_CP);
                     @SuppressWarnings("unchecked") Optional<Integer> lPokemonHP =
                             (Optional<Integer>) intent.getSerializableExtra(KEY_SEND_INFO_HP);
-                    @SuppressWarnings("unchecked") Optional<Integer> lCandyAmount =
-                            (Optional<Integer>) intent.getSerializableExtra(KEY_SEND_INFO_CANDY_AMOUNT);
                     @SuppressWarnings("unchecked") Optional<Integer> lCandyUpgradeCost =
                             (Optional<Integer>) intent.getSerializableExtra(KEY_SEND_UPGRADE_CANDY_COST);
-                    @SuppressWarnings("unchecked") String lUniqueID =
-                            (String) intent.getSerializableExtra(KEY_SEND_UNIQUE_ID);
 
                     screenShotPath = lScreenShotFile;
                     pokemonCP = lPokemonCP;
                     pokemonHP = lPokemonHP;
-                    pokemonCandy = lCandyAmount;
+                    pokemonCandy = Optional.absent();
                     candyUpgradeCost = lCandyUpgradeCost;
-                    pokemonUniqueID = lUniqueID;
 
                     estimatedPokemonLevel = intent.getDoubleExtra(KEY_SEND_INFO_LEVEL, estimatedPokemonLevel);
                     if (estimatedPokemonLevel < 1.0) {
@@ -1970,6 +2468,7 @@ public class Pokefly extends Service {
                     }
 
                     showInfoLayout();
+                    fillDeferredFields(scannedResult);
                 } else {
                     resetPokeflyStateMachine();
                 }
@@ -1997,4 +2496,19 @@ public class Pokefly extends Service {
     private int dpToPx(int dp) {
         return Math.round(dp * (displayMetrics.xdpi / DisplayMetrics.DENSITY_DEFAULT));
     }
+
+    /**
+     * The result of a scan, along with the pokemon guessed from it and what it was scanned from.
+     */
+    private static class CompletedScan {
+        final ScanResult result;
+        final PokemonNameCorrector.PokeDist guess;
+        final int trainerLevel;
+
+        CompletedScan(ScanResult result, PokemonNameCorrector.PokeDist guess, int trainerLevel) {
+            this.result = result;
+            this.guess = guess;
+            this.trainerLevel = trainerLevel;
+        }
+    }
 }
@@ -6,8 +6,6 @@ import com.kamron.pogoiv.logic.IVScanResult;
 import com.kamron.pogoiv.logic.PokeInfoCalculator;
 import com.kamron.pogoiv.logic.Pokemon;
 
-import java.util.ArrayList;
-
 /**
  * Created by Johan on 2016-09-24.
  * An interface which lists the methods required for tokens that users can use to build custom clipboard snippets on
@@ -67,30 +65,6 @@ public abstract class ClipboardToken {
         return "." + this.getClass().getSimpleName() + forEvolution;
     }
 
-    /**
-     * Get the last evolution in an evolution chain of a pokemon, unless the pokemon does not have an evolution.
-     * Handles edge case Vaporeon etc by not checking for last evolution index if the pokemon does not have an
-     * evolution.
-     *
-     * @param poke               Poke to base logic on
-     * @param pokeInfoCalculator The calculator used to get the evolution line.
-     * @return The last pokemon in an evolution line.
-     */
-    private Pokemon getLastEv(Pokemon poke, PokeInfoCalculator pokeInfoCalculator) {
-        Pokemon lastEv;
-        //If-else below exists to manage scenario where pokemon has multiple evolution possibilities, so for example
-        //If you scan a vaporeon, it has no evolutions, so there's no need to go to the bottom of the evolution chain
-        // and find jolteon.. or whatever eeveelution is last.
-        if (poke.evolutions.size() != 0) {
-            ArrayList<Pokemon> evLine = pokeInfoCalculator.getEvolutionLine(poke);
-            lastEv = evLine.get(evLine.size() - 1);
-        } else {
-            lastEv = poke;
-        }
-
-        return lastEv;
-    }
-
     /**
      * Get a pokemon that is either the scanned pokemon, or the last evolution in the line, depending on the token
      * setting.
@@ -100,7 +74,7 @@ public abstract class ClipboardToken {
      * @return Either the same pokemon sent in, or the last evolution, depending on the token setting.
      */
     public Pokemon getRightPokemon(Pokemon poke, PokeInfoCalculator pic) {
-        return maxEv ? getLastEv(poke, pic) : poke;
+        return maxEv ? pic.getLastEvolution(poke) : poke;
     }
 
     /**
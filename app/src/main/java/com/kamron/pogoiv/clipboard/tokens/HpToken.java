@@ -35,7 +35,7 @@ public class HpToken extends ClipboardToken {
     public String getValue(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator) {
         Pokemon poke = getRightPokemon(ivScanResult.pokemon, pokeInfoCalculator);
         double level = currentLevel ? ivScanResult.estimatedPokemonLevel : 40;
-        int hp = pokeInfoCalculator.getHPAtLevel(ivScanResult, level, poke);
+        int hp = ivScanResult.getDerivedStats(pokeInfoCalculator).getHPAtLevel(poke, level);
         return String.valueOf(hp);
     }
 
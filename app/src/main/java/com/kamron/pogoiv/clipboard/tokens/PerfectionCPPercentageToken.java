@@ -3,7 +3,7 @@ package com.kamron.pogoiv.clipboard.tokens;
 import android.content.Context;
 
 import com.kamron.pogoiv.clipboard.ClipboardToken;
-import com.kamron.pogoiv.logic.IVCombination;
+import com.kamron.pogoiv.logic.DerivedStats;
 import com.kamron.pogoiv.logic.IVScanResult;
 import com.kamron.pogoiv.logic.PokeInfoCalculator;
 import com.kamron.pogoiv.logic.Pokemon;
@@ -32,10 +32,9 @@ public class PerfectionCPPercentageToken extends ClipboardToken {
     @Override
     public String getValue(IVScanResult isr, PokeInfoCalculator pokeInfoCalculator) {
         Pokemon poke = getRightPokemon(isr.pokemon, pokeInfoCalculator);
-        double perfectIvCp = pokeInfoCalculator.getCpRangeAtLevel(poke,
-                IVCombination.MAX, IVCombination.MAX, 40).getFloatingAvg();
-        double thisCP = pokeInfoCalculator.getCpRangeAtLevel(poke,
-                isr.getCombinationLowIVs(), isr.getCombinationHighIVs(), 40).getFloatingAvg();
+        DerivedStats derivedStats = isr.getDerivedStats(pokeInfoCalculator);
+        double perfectIvCp = derivedStats.getPerfectCpAtLevel(poke, 40);
+        double thisCP = derivedStats.getCpRangeAtLevel(poke, 40).getFloatingAvg();
         long roundedPerfection = Math.round(thisCP * 100.0 / perfectIvCp);
         return String.valueOf(roundedPerfection);
     }
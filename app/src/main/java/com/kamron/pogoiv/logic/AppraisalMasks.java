@@ -0,0 +1,139 @@
+package com.kamron.pogoiv.logic;
+
+/**
+ * The IV combinations matching each answer of the appraisal, precomputed so that refining the possible IVs by the
+ * appraisal is a bitwise AND, whatever the order the answers are given in.
+ * The masks are shared, so they are only given out as copies. The package intersects sets with them in place.
+ */
+public class AppraisalMasks {
+    /**
+     * The combinations whose highest stats are the ones said by the appraisal, indexed by att << 2 | def << 1 | sta.
+     * There's always a highest stat, so index 0 is empty.
+     */
+    private static final IVSet[] HIGHEST_STATS = new IVSet[8];
+    /**
+     * The combinations of each overall appraisal, indexed by the position of the answer in its spinner:
+     * 1: 81-100%
+     * 2: 66-80%
+     * 3: 51-65%
+     * 4: 0-50%
+     * 0 means no answer, and keeps all combinations.
+     */
+    private static final IVSet[] PERCENTAGE_RANGES = new IVSet[5];
+    /**
+     * The combinations of each appraisal of the highest IV, indexed by the position of the answer in its spinner:
+     * 1: 15
+     * 2: 13-14
+     * 3: 8-12
+     * 4: 0-7
+     * 0 means no answer, and keeps all combinations.
+     */
+    private static final IVSet[] IV_RANGES = new IVSet[5];
+
+    private static final int[][] PERCENTAGE_BOUNDS = {{0, 100}, {81, 100}, {66, 80}, {51, 65}, {0, 50}};
+    private static final int[][] IV_BOUNDS = {{0, 15}, {15, 15}, {13, 14}, {8, 12}, {0, 7}};
+
+    static {
+        for (int i = 0; i < HIGHEST_STATS.length; i++) {
+            HIGHEST_STATS[i] = IVSet.full();
+            HIGHEST_STATS[i].retainHighestStatSignature((i & 4) != 0, (i & 2) != 0, (i & 1) != 0);
+        }
+        for (int i = 0; i < PERCENTAGE_RANGES.length; i++) {
+            PERCENTAGE_RANGES[i] = IVSet.full();
+            PERCENTAGE_RANGES[i].retainPercentPerfectRange(PERCENTAGE_BOUNDS[i][0], PERCENTAGE_BOUNDS[i][1]);
+        }
+        for (int i = 0; i < IV_RANGES.length; i++) {
+            IV_RANGES[i] = IVSet.full();
+            IV_RANGES[i].retainHighestStatRange(IV_BOUNDS[i][0], IV_BOUNDS[i][1]);
+        }
+    }
+
+    private AppraisalMasks() {
+    }
+
+    /**
+     * Get the combinations whose highest stats are exactly the given ones.
+     *
+     * @return A new set, which the caller can modify.
+     */
+    public static IVSet getHighestStats(boolean attIsHighest, boolean defIsHighest, boolean staIsHighest) {
+        return new IVSet(highestStats(attIsHighest, defIsHighest, staIsHighest));
+    }
+
+    /**
+     * Get the combinations of an overall appraisal.
+     *
+     * @param selectedItemPosition The position of the answer in its spinner, 0 for no answer.
+     * @return A new set, which the caller can modify.
+     */
+    public static IVSet getPercentageRange(int selectedItemPosition) {
+        return new IVSet(percentageRange(selectedItemPosition));
+    }
+
+    /**
+     * Get the combinations of an appraisal of the highest IV.
+     *
+     * @param selectedItemPosition The position of the answer in its spinner, 0 for no answer.
+     * @return A new set, which the caller can modify.
+     */
+    public static IVSet getIVRange(int selectedItemPosition) {
+        return new IVSet(ivRange(selectedItemPosition));
+    }
+
+    /**
+     * Removes the combinations whose highest stats aren't exactly the given ones from a set.
+     */
+    static void retainHighestStats(IVSet set, boolean attIsHighest, boolean defIsHighest, boolean staIsHighest) {
+        set.retainAll(highestStats(attIsHighest, defIsHighest, staIsHighest));
+    }
+
+    /**
+     * Removes the combinations which don't match an overall appraisal from a set.
+     */
+    static void retainPercentageRange(IVSet set, int selectedItemPosition) {
+        set.retainAll(percentageRange(selectedItemPosition));
+    }
+
+    /**
+     * Removes the combinations which don't match an appraisal of the highest IV from a set.
+     */
+    static void retainIVRange(IVSet set, int selectedItemPosition) {
+        set.retainAll(ivRange(selectedItemPosition));
+    }
+
+    private static IVSet highestStats(boolean attIsHighest, boolean defIsHighest, boolean staIsHighest) {
+        return HIGHEST_STATS[(attIsHighest ? 4 : 0) | (defIsHighest ? 2 : 0) | (staIsHighest ? 1 : 0)];
+    }
+
+    private static IVSet percentageRange(int selectedItemPosition) {
+        return PERCENTAGE_RANGES[isAnswer(selectedItemPosition) ? selectedItemPosition : 0];
+    }
+
+    private static IVSet ivRange(int selectedItemPosition) {
+        return IV_RANGES[isAnswer(selectedItemPosition) ? selectedItemPosition : 0];
+    }
+
+    /**
+     * Get the combinations matching all the answers of an appraisal.
+     *
+     * @param attIsHighest          Whether the attack is said to be the highest stat.
+     * @param defIsHighest          Whether the defense is said to be the highest stat.
+     * @param staIsHighest          Whether the stamina is said to be the highest stat.
+     * @param percentageRangeAnswer The position of the overall appraisal in its spinner, 0 for no answer.
+     * @param ivRangeAnswer         The position of the highest IV appraisal in its spinner, 0 for no answer.
+     * @return A new set, which the caller can modify.
+     */
+    public static IVSet getMask(boolean attIsHighest, boolean defIsHighest, boolean staIsHighest,
+                                int percentageRangeAnswer, int ivRangeAnswer) {
+        IVSet mask = getPercentageRange(percentageRangeAnswer);
+        retainIVRange(mask, ivRangeAnswer);
+        if (attIsHighest || defIsHighest || staIsHighest) {
+            retainHighestStats(mask, attIsHighest, defIsHighest, staIsHighest);
+        }
+        return mask;
+    }
+
+    private static boolean isAnswer(int selectedItemPosition) {
+        return selectedItemPosition > 0 && selectedItemPosition < PERCENTAGE_BOUNDS.length;
+    }
+}
@@ -25,6 +25,36 @@ public class Data {
             0.767397165298462, 0.770297293677362, 0.773186504840851, 0.776064947064992, 0.778932750225067,
             0.781790050767666, 0.784636974334717, 0.787473608513275, 0.790300011634827};
 
+    /**
+     * The stardust and candy it costs to power up a pokemon from each level index to the next one
+     * (http://pokemongo.gamepress.gg/power-up-costs). There's no power up from the last level.
+     */
+    private static final int[] POWER_UP_STARDUST = {
+            200, 200, 200, 200, 400, 400, 400, 400, 600, 600,
+            600, 600, 800, 800, 800, 800, 1000, 1000, 1000, 1000,
+            1300, 1300, 1300, 1300, 1600, 1600, 1600, 1600, 1900, 1900,
+            1900, 1900, 2200, 2200, 2200, 2200, 2500, 2500, 2500, 2500,
+            3000, 3000, 3000, 3000, 3500, 3500, 3500, 3500, 4000, 4000,
+            4000, 4000, 4500, 4500, 4500, 4500, 5000, 5000, 5000, 5000,
+            6000, 6000, 6000, 6000, 7000, 7000, 7000, 7000, 8000, 8000,
+            8000, 8000, 9000, 9000, 9000, 9000, 10000, 10000};
+    private static final int[] POWER_UP_CANDY = {
+            1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+            1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+            2, 2, 2, 2, 2, 2, 2, 2, 2, 2,
+            2, 2, 2, 2, 2, 2, 2, 2, 2, 2,
+            3, 3, 3, 3, 3, 3, 3, 3, 3, 3,
+            4, 4, 4, 4, 4, 4, 4, 4, 4, 4,
+            6, 6, 6, 6, 8, 8, 8, 8, 10, 10,
+            10, 10, 12, 12, 12, 12, 15, 15};
+
+    /**
+     * The total stardust and candy it costs to power up a pokemon from the first level to each level index, so
+     * that the cost between two levels is a subtraction.
+     */
+    private static final int[] STARDUST_FROM_FIRST_LEVEL = prefixSums(POWER_UP_STARDUST);
+    private static final int[] CANDY_FROM_FIRST_LEVEL = prefixSums(POWER_UP_CANDY);
+
     public static int[] arcX;
     public static int[] arcY;
 
@@ -89,6 +119,46 @@ public class Data {
         return CpM[levelToLevelIdx(level)];
     }
 
+    /**
+     * Get how many pokemon levels there are, so valid level indexes go from 0 to getLevelIdxCount() - 1.
+     */
+    public static int getLevelIdxCount() {
+        return CpM.length;
+    }
+
+    /**
+     * Get the stardust it costs to power up a pokemon from a level index to another.
+     *
+     * @return The cost, which is 0 if toLevelIdx isn't higher than fromLevelIdx.
+     */
+    public static int getPowerUpStardustCost(int fromLevelIdx, int toLevelIdx) {
+        return getCostBetween(STARDUST_FROM_FIRST_LEVEL, fromLevelIdx, toLevelIdx);
+    }
+
+    /**
+     * Get the candy it costs to power up a pokemon from a level index to another.
+     *
+     * @return The cost, which is 0 if toLevelIdx isn't higher than fromLevelIdx.
+     */
+    public static int getPowerUpCandyCost(int fromLevelIdx, int toLevelIdx) {
+        return getCostBetween(CANDY_FROM_FIRST_LEVEL, fromLevelIdx, toLevelIdx);
+    }
+
+    private static int getCostBetween(int[] costFromFirstLevel, int fromLevelIdx, int toLevelIdx) {
+        if (toLevelIdx <= fromLevelIdx) {
+            return 0;
+        }
+        return costFromFirstLevel[toLevelIdx] - costFromFirstLevel[fromLevelIdx];
+    }
+
+    private static int[] prefixSums(int[] costs) {
+        int[] sums = new int[costs.length + 1];
+        for (int i = 0; i < costs.length; i++) {
+            sums[i + 1] = sums[i] + costs[i];
+        }
+        return sums;
+    }
+
     /**
      * Maximum pokemon level for a trainer, from the trainer level. That's usually trainerLevel + 1.5, but
      * the maximum is 40 (http://pokemongo.gamepress.gg/power-up-costs).
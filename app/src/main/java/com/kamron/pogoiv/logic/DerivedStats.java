@@ -0,0 +1,93 @@
+package com.kamron.pogoiv.logic;
+
+import java.util.List;
+
+/**
+ * The stats derived from the IVs of a scan, for the scanned pokemon and every pokemon of its evolution line at every
+ * level. They're computed once per scan, so that the result screen and the clipboard tokens only read them, however
+ * often the user moves the level seekbar.
+ */
+public class DerivedStats {
+    private final PokeInfoCalculator pokeInfoCalculator;
+    private final IVScanResult ivScanResult;
+    private final List<Pokemon> evolutionLine;
+    /**
+     * The stats of each pokemon of the evolution line, at the same position, indexed by level index.
+     */
+    private final int[][] lowCps;
+    private final int[][] highCps;
+    private final int[][] perfectCps;
+    private final int[][] hps;
+
+    DerivedStats(PokeInfoCalculator pokeInfoCalculator, IVScanResult ivScanResult) {
+        this.pokeInfoCalculator = pokeInfoCalculator;
+        this.ivScanResult = ivScanResult;
+        this.evolutionLine = pokeInfoCalculator.getEvolutionLine(ivScanResult.pokemon);
+
+        int levelIdxCount = Data.getLevelIdxCount();
+        lowCps = new int[evolutionLine.size()][levelIdxCount];
+        highCps = new int[evolutionLine.size()][levelIdxCount];
+        perfectCps = new int[evolutionLine.size()][levelIdxCount];
+        hps = new int[evolutionLine.size()][levelIdxCount];
+        IVCombination low = ivScanResult.getCombinationLowIVs();
+        IVCombination high = ivScanResult.getCombinationHighIVs();
+        int maxIV = SpeciesStatTable.IV_COUNT - 1;
+        for (int i = 0; i < evolutionLine.size(); i++) {
+            SpeciesStatTable statTable = pokeInfoCalculator.getStatTable(evolutionLine.get(i));
+            for (int levelIdx = 0; levelIdx < levelIdxCount; levelIdx++) {
+                int lowCp = statTable.getRangeCp(levelIdx, low.att, low.def, low.sta);
+                int highCp = statTable.getRangeCp(levelIdx, high.att, high.def, high.sta);
+                lowCps[i][levelIdx] = Math.min(lowCp, highCp);
+                highCps[i][levelIdx] = Math.max(lowCp, highCp);
+                perfectCps[i][levelIdx] = statTable.getRangeCp(levelIdx, maxIV, maxIV, maxIV);
+                hps[i][levelIdx] = statTable.getHp(levelIdx, ivScanResult.highStamina);
+            }
+        }
+    }
+
+    public List<Pokemon> getEvolutionLine() {
+        return evolutionLine;
+    }
+
+    /**
+     * Get the CP range of a pokemon with the IVs of the scan at a level, like PokeInfoCalculator.getCpRangeAtLevel
+     * with the lowest and highest IVs of the scan.
+     *
+     * @param pokemon The scanned pokemon or one of its evolution line.
+     */
+    public CPRange getCpRangeAtLevel(Pokemon pokemon, double level) {
+        int i = evolutionLine.indexOf(pokemon);
+        if (i < 0) {
+            return pokeInfoCalculator.getCpRangeAtLevel(pokemon, ivScanResult.getCombinationLowIVs(),
+                    ivScanResult.getCombinationHighIVs(), level);
+        }
+        int levelIdx = Data.levelToLevelIdx(level);
+        return new CPRange(lowCps[i][levelIdx], highCps[i][levelIdx]);
+    }
+
+    /**
+     * Get the CP a pokemon would have with perfect IVs at a level.
+     *
+     * @param pokemon The scanned pokemon or one of its evolution line.
+     */
+    public int getPerfectCpAtLevel(Pokemon pokemon, double level) {
+        int i = evolutionLine.indexOf(pokemon);
+        if (i < 0) {
+            return pokeInfoCalculator.getCpRangeAtLevel(pokemon, IVCombination.MAX, IVCombination.MAX, level).high;
+        }
+        return perfectCps[i][Data.levelToLevelIdx(level)];
+    }
+
+    /**
+     * Get the HP of a pokemon with the IVs of the scan at a level, like PokeInfoCalculator.getHPAtLevel.
+     *
+     * @param pokemon The scanned pokemon or one of its evolution line.
+     */
+    public int getHPAtLevel(Pokemon pokemon, double level) {
+        int i = evolutionLine.indexOf(pokemon);
+        if (i < 0) {
+            return pokeInfoCalculator.getHPAtLevel(ivScanResult, level, pokemon);
+        }
+        return hps[i][Data.levelToLevelIdx(level)];
+    }
+}
@@ -0,0 +1,96 @@
+package com.kamron.pogoiv.logic;
+
+/**
+ * A string prepared to compute its edit distance to many other strings, with Myers' bit-parallel algorithm: each
+ * column of the dynamic programming matrix is kept as the bit vectors of its vertical differences, so a character
+ * of the other string costs a few bitwise operations instead of a loop over the pattern. This needs the pattern to
+ * fit in a long, longer patterns use Data.levenshteinDistance.
+ */
+public class EditDistancePattern {
+    private static final int MAX_BIT_PARALLEL_LENGTH = 64;
+
+    private final String pattern;
+    /**
+     * The distinct characters of the pattern, and for each one the bits of the positions where it appears.
+     */
+    private final char[] chars;
+    private final long[] positions;
+
+    public EditDistancePattern(String pattern) {
+        this.pattern = pattern;
+        char[] distinctChars = new char[pattern.length()];
+        long[] distinctPositions = new long[pattern.length()];
+        int distinctCount = 0;
+        if (pattern.length() <= MAX_BIT_PARALLEL_LENGTH) {
+            for (int i = 0; i < pattern.length(); i++) {
+                int j = 0;
+                while (j < distinctCount && distinctChars[j] != pattern.charAt(i)) {
+                    j++;
+                }
+                if (j == distinctCount) {
+                    distinctChars[j] = pattern.charAt(i);
+                    distinctCount++;
+                }
+                distinctPositions[j] |= 1L << i;
+            }
+        }
+        this.chars = new char[distinctCount];
+        this.positions = new long[distinctCount];
+        System.arraycopy(distinctChars, 0, chars, 0, distinctCount);
+        System.arraycopy(distinctPositions, 0, positions, 0, distinctCount);
+    }
+
+    /**
+     * Get the Levenshtein distance between the pattern and a text, stopping early once it's known to be over a
+     * bound. Nothing is allocated.
+     *
+     * @param text        The text to compare the pattern to.
+     * @param maxDistance The highest distance the caller is interested in.
+     * @return The distance if it's at most maxDistance, or else any value higher than maxDistance.
+     */
+    public int distanceTo(char[] text, int maxDistance) {
+        int m = pattern.length();
+        if (m > MAX_BIT_PARALLEL_LENGTH) {
+            return Data.levenshteinDistance(pattern, new String(text));
+        }
+        if (m == 0) {
+            return text.length;
+        }
+
+        long lastBit = 1L << (m - 1);
+        long verticalPositive = -1L;
+        long verticalNegative = 0;
+        int distance = m;
+        for (int j = 0; j < text.length; j++) {
+            long equal = getPositions(text[j]);
+            long xv = equal | verticalNegative;
+            long xh = (((equal & verticalPositive) + verticalPositive) ^ verticalPositive) | equal;
+            long horizontalPositive = verticalNegative | ~(xh | verticalPositive);
+            long horizontalNegative = verticalPositive & xh;
+            if ((horizontalPositive & lastBit) != 0) {
+                distance++;
+            } else if ((horizontalNegative & lastBit) != 0) {
+                distance--;
+            }
+            //Each remaining character lowers the distance by at most 1.
+            if (distance - (text.length - j - 1) > maxDistance) {
+                return distance - (text.length - j - 1);
+            }
+            //The first row of the matrix is the distance to the empty pattern, which grows with every character.
+            horizontalPositive = (horizontalPositive << 1) | 1;
+            horizontalNegative = horizontalNegative << 1;
+            verticalPositive = horizontalNegative | ~(xv | horizontalPositive);
+            verticalNegative = horizontalPositive & xv;
+        }
+        return distance;
+    }
+
+    private long getPositions(char c) {
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == c) {
+                return positions[i];
+            }
+        }
+        return 0;
+    }
+}
@@ -1,7 +1,5 @@
 package com.kamron.pogoiv.logic;
 
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
 
 /**
@@ -9,6 +7,21 @@ import java.util.Comparator;
  * A class which represents an IV value
  */
 public class IVCombination {
+    /**
+     * Every valid IV combination, indexed by SpeciesStatTable.ivIndex, shared so that IV sets don't allocate them.
+     */
+    private static final IVCombination[] ALL = new IVCombination[16 * 16 * 16];
+
+    static {
+        for (int sta = 0; sta < 16; sta++) {
+            for (int def = 0; def < 16; def++) {
+                for (int att = 0; att < 16; att++) {
+                    ALL[SpeciesStatTable.ivIndex(att, def, sta)] = new IVCombination(att, def, sta);
+                }
+            }
+        }
+    }
+
     public final int att;
     public final int def;
     public final int sta;
@@ -18,7 +31,32 @@ public class IVCombination {
         this.att = att;
         this.def = def;
         this.sta = sta;
-        percentPerfect = Math.round((att + def + sta) / 45f * 100);
+        percentPerfect = getPercentPerfect(att + def + sta);
+    }
+
+    /**
+     * Get the shared instance of a valid IV combination.
+     */
+    public static IVCombination get(int att, int def, int sta) {
+        return ALL[SpeciesStatTable.ivIndex(att, def, sta)];
+    }
+
+    /**
+     * Get the shared instance of a valid IV combination.
+     *
+     * @param ivIndex The index of the combination, as given by SpeciesStatTable.ivIndex.
+     */
+    public static IVCombination get(int ivIndex) {
+        return ALL[ivIndex];
+    }
+
+    /**
+     * Get how perfect IV combinations with a total (att + def + sta) are.
+     *
+     * @return A percentage, 100 for a total of 45.
+     */
+    public static int getPercentPerfect(int total) {
+        return Math.round(total / 45f * 100);
     }
 
     public static IVCombination MAX = new IVCombination(15, 15, 15);
@@ -45,7 +83,7 @@ public class IVCombination {
      * @return a number between 0 and 15 which is the highest stat in this combination
      */
     public int getHighestStat() {
-        return Collections.max(Arrays.asList(att, def, sta));
+        return Math.max(att, Math.max(def, sta));
     }
 
     /**
@@ -0,0 +1,147 @@
+package com.kamron.pogoiv.logic;
+
+import java.util.Arrays;
+
+/**
+ * An inverted index of the IV combinations of a species, to find the ones matching a scanned CP and HP without
+ * trying all 4096 of them.
+ * For each level, the combinations are partitioned by stamina IV, since the HP only depends on it, and each
+ * partition is sorted by CP. The combinations of a CP are then a slice found by binary search. The IV combinations
+ * are packed in 12 bits, as SpeciesStatTable.ivIndex does.
+ * The levels are indexed the first time they are searched.
+ */
+public class IVIndex {
+    private static final int IV_COUNT = SpeciesStatTable.IV_COUNT;
+    private static final int PARTITION_SIZE = IV_COUNT * IV_COUNT;
+    private static final int IV_CODE_BITS = 12;
+    private static final int IV_CODE_MASK = (1 << IV_CODE_BITS) - 1;
+    private static final short[] NO_IV_CODES = new short[0];
+
+    private final SpeciesStatTable statTable;
+    /**
+     * The packed IV combinations of each level, partitioned by stamina IV and sorted by CP, then by IV code.
+     */
+    private final short[][] ivCodes;
+    /**
+     * The CP of the combination at the same position of ivCodes.
+     */
+    private final short[][] cps;
+
+    public IVIndex(SpeciesStatTable statTable) {
+        this.statTable = statTable;
+        int levelIdxCount = Data.getLevelIdxCount();
+        this.ivCodes = new short[levelIdxCount][];
+        this.cps = new short[levelIdxCount][];
+    }
+
+    /**
+     * Get the IV combinations giving a CP and HP.
+     *
+     * @param levelIdx The level index.
+     * @param hp       The HP.
+     * @param cp       The CP.
+     * @return The packed IV combinations, ordered by stamina, defense then attack IV.
+     */
+    public short[] findIVCodes(int levelIdx, int hp, int cp) {
+        //HP grows with the stamina IV, so the partitions with the right HP are consecutive.
+        int firstStamina = 0;
+        while (firstStamina < IV_COUNT && statTable.getHp(levelIdx, firstStamina) < hp) {
+            firstStamina++;
+        }
+        int endStamina = firstStamina;
+        while (endStamina < IV_COUNT && statTable.getHp(levelIdx, endStamina) == hp) {
+            endStamina++;
+        }
+        //CP grows with every IV, so levels which can't give the CP are skipped without being indexed.
+        int maxIV = IV_COUNT - 1;
+        if (firstStamina == endStamina || cp < statTable.getCp(levelIdx, 0, 0, firstStamina)
+                || cp > statTable.getCp(levelIdx, maxIV, maxIV, endStamina - 1)) {
+            return NO_IV_CODES;
+        }
+
+        short[] levelCodes;
+        short[] levelCps;
+        synchronized (this) {
+            if (ivCodes[levelIdx] == null) {
+                buildLevel(levelIdx);
+            }
+            levelCodes = ivCodes[levelIdx];
+            levelCps = cps[levelIdx];
+        }
+
+        int[] sliceStarts = new int[endStamina - firstStamina];
+        int[] sliceEnds = new int[endStamina - firstStamina];
+        int count = 0;
+        for (int staminaIV = firstStamina; staminaIV < endStamina; staminaIV++) {
+            int partitionStart = staminaIV * PARTITION_SIZE;
+            int partitionEnd = partitionStart + PARTITION_SIZE;
+            int i = staminaIV - firstStamina;
+            sliceStarts[i] = lowerBound(levelCps, partitionStart, partitionEnd, cp);
+            sliceEnds[i] = lowerBound(levelCps, sliceStarts[i], partitionEnd, cp + 1);
+            count += sliceEnds[i] - sliceStarts[i];
+        }
+
+        short[] found = new short[count];
+        int foundCount = 0;
+        for (int i = 0; i < sliceStarts.length; i++) {
+            int length = sliceEnds[i] - sliceStarts[i];
+            System.arraycopy(levelCodes, sliceStarts[i], found, foundCount, length);
+            foundCount += length;
+        }
+        return found;
+    }
+
+    /**
+     * Sorts the IV combinations of a level, by stamina IV and CP.
+     */
+    private void buildLevel(int levelIdx) {
+        short[] levelCodes = new short[IV_COUNT * PARTITION_SIZE];
+        short[] levelCps = new short[IV_COUNT * PARTITION_SIZE];
+        int[] partition = new int[PARTITION_SIZE];
+        for (int staminaIV = 0; staminaIV < IV_COUNT; staminaIV++) {
+            int i = 0;
+            for (int defenseIV = 0; defenseIV < IV_COUNT; defenseIV++) {
+                for (int attackIV = 0; attackIV < IV_COUNT; attackIV++) {
+                    int cp = statTable.getCp(levelIdx, attackIV, defenseIV, staminaIV);
+                    //Sorting the CP and code together keeps the combinations of a CP in IV order.
+                    partition[i++] = cp << IV_CODE_BITS | SpeciesStatTable.ivIndex(attackIV, defenseIV, staminaIV);
+                }
+            }
+            Arrays.sort(partition);
+            int partitionStart = staminaIV * PARTITION_SIZE;
+            for (i = 0; i < PARTITION_SIZE; i++) {
+                levelCodes[partitionStart + i] = (short) (partition[i] & IV_CODE_MASK);
+                levelCps[partitionStart + i] = (short) (partition[i] >>> IV_CODE_BITS);
+            }
+        }
+        ivCodes[levelIdx] = levelCodes;
+        cps[levelIdx] = levelCps;
+    }
+
+    /**
+     * Get the first position of a sorted range whose value is at least value.
+     */
+    private static int lowerBound(short[] sorted, int from, int to, int value) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (sorted[middle] < value) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    public static int getAttackIV(short ivCode) {
+        return ivCode & 0xf;
+    }
+
+    public static int getDefenseIV(short ivCode) {
+        return (ivCode >> 4) & 0xf;
+    }
+
+    public static int getStaminaIV(short ivCode) {
+        return (ivCode >> 8) & 0xf;
+    }
+}
@@ -3,9 +3,9 @@ package com.kamron.pogoiv.logic;
 import android.support.annotation.Nullable;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 
 /**
  * A class which represents all possible iv combinations for a pokemon.
@@ -33,10 +33,12 @@ public class IVScanResult {
     public int highDefense = 0;
     public int highStamina = 0;
     public final int scannedCP;
-    public ArrayList<IVCombination> iVCombinations = new ArrayList<>();
+    public IVSet iVCombinations = new IVSet();
     public Pokemon pokemon = null;
     public final double estimatedPokemonLevel;
     public int scannedHP = 0;
+    public Inputs usedInputs = Inputs.HP_AND_CP;
+    private DerivedStats derivedStats;
 
     /**
      * Creates a holder object for IV scan results.
@@ -51,6 +53,17 @@ public class IVScanResult {
         this.scannedCP = pokemonCP;
     }
 
+    /**
+     * Get the stats derived from the IVs of this scan, which are computed the first time they're needed and then
+     * shared by everything showing them. Must only be called once all the IV combinations were added.
+     */
+    public synchronized DerivedStats getDerivedStats(PokeInfoCalculator pokeInfoCalculator) {
+        if (derivedStats == null) {
+            derivedStats = new DerivedStats(pokeInfoCalculator, this);
+        }
+        return derivedStats;
+    }
+
     public int getCount() {
         return iVCombinations.size();
     }
@@ -59,15 +72,19 @@ public class IVScanResult {
      * Calculates and returns the average % of the possible IVs.
      */
     public int getAveragePercent() {
-        int sum = 0;
-        for (IVCombination ivc : iVCombinations) {
-            sum += ivc.att + ivc.def + ivc.sta;
-        }
+        int sum = iVCombinations.getTotalSum();
         return Math.round(sum * 100f / (45f * getCount()));
     }
 
-    public void sortCombinations() {
-        Collections.sort(iVCombinations, new Comparator<IVCombination>() {
+    /**
+     * Get the possible IV combinations, sorted by percent perfect, then attack, defense and stamina.
+     */
+    public List<IVCombination> getSortedCombinations() {
+        List<IVCombination> sorted = new ArrayList<>(iVCombinations.size());
+        for (IVCombination combination : iVCombinations) {
+            sorted.add(combination);
+        }
+        Collections.sort(sorted, new Comparator<IVCombination>() {
             @Override public int compare(IVCombination o1, IVCombination o2) {
                 int comparePercent = o1.percentPerfect - o2.percentPerfect;
                 if (comparePercent != 0) {
@@ -85,6 +102,7 @@ public class IVScanResult {
                 return compareSta;
             }
         });
+        return sorted;
     }
 
     /**
@@ -118,7 +136,7 @@ public class IVScanResult {
         }
 
 
-        iVCombinations.add(new IVCombination(attackIV, defenseIV, staminaIV));
+        iVCombinations.add(attackIV, defenseIV, staminaIV);
     }
 
 
@@ -126,20 +144,14 @@ public class IVScanResult {
      * Get the IV combination which has the highest sum of att+def+sta, or tied to equal.
      */
     public @Nullable IVCombination getHighestIVCombination() {
-        if (iVCombinations.size() == 0) {
-            return null;
-        }
-        return Collections.max(iVCombinations, IVCombination.totalComparator);
+        return iVCombinations.getHighestTotal();
     }
 
     /**
      * Get the IV combination which has the lowest sum of att+def+sta, or tied to equal.
      */
     public @Nullable IVCombination getLowestIVCombination() {
-        if (iVCombinations.size() == 0) {
-            return null;
-        }
-        return Collections.min(iVCombinations, IVCombination.totalComparator);
+        return iVCombinations.getLowestTotal();
     }
 
     /**
@@ -163,15 +175,7 @@ public class IVScanResult {
      * Several stats can be highest if they're equal.
      */
     public void refineByHighest(boolean attIsHighest, boolean defIsHighest, boolean staIsHighest) {
-        ArrayList<IVCombination> refinedList = new ArrayList<>();
-
-        for (IVCombination comb : iVCombinations) {
-            Boolean[] knownAttDefSta = {attIsHighest, defIsHighest, staIsHighest};
-            if (Arrays.equals(comb.getHighestStatSignature(), knownAttDefSta)) {
-                refinedList.add(comb);
-            }
-        }
-        iVCombinations = refinedList;
+        AppraisalMasks.retainHighestStats(iVCombinations, attIsHighest, defIsHighest, staIsHighest);
     }
 
     /**
@@ -184,41 +188,7 @@ public class IVScanResult {
      * @param selectedItemPosition a number between 1 to 4 as detailed above
      */
     public void refineByAppraisalPercentageRange(int selectedItemPosition) {
-        int lowest;
-        int highest;
-
-        switch (selectedItemPosition) {
-            case 1:
-                lowest = 81;
-                highest = 100;
-                break;
-            case 2:
-                lowest = 66;
-                highest = 80;
-                break;
-            case 3:
-                lowest = 51;
-                highest = 65;
-                break;
-            case 4:
-                lowest = 0;
-                highest = 50;
-                break;
-            default:
-                lowest = 0;
-                highest = 100;
-        }
-
-        ArrayList<IVCombination> refinedList = new ArrayList<>();
-
-        for (IVCombination comb : iVCombinations) {
-
-            if (comb.percentPerfect >= lowest && comb.percentPerfect <= highest) {
-                refinedList.add(comb);
-            }
-        }
-
-        iVCombinations = refinedList;
+        AppraisalMasks.retainPercentageRange(iVCombinations, selectedItemPosition);
     }
 
     /**
@@ -232,39 +202,34 @@ public class IVScanResult {
      * @param selectedItemPosition a number between 1 to 4 as detailed above
      */
     public void refineByAppraisalIVRange(int selectedItemPosition) {
-        int lowest;
-        int highest;
-
-        switch (selectedItemPosition) {
-            case 1:
-                lowest = 15;
-                highest = 15;
-                break;
-            case 2:
-                lowest = 13;
-                highest = 14;
-                break;
-            case 3:
-                lowest = 8;
-                highest = 12;
-                break;
-            case 4:
-                lowest = 0;
-                highest = 7;
-                break;
-            default:
-                lowest = 0;
-                highest = 15;
-        }
-
-        ArrayList<IVCombination> refinedList = new ArrayList<>();
+        AppraisalMasks.retainIVRange(iVCombinations, selectedItemPosition);
+    }
 
-        for (IVCombination comb : iVCombinations) {
+    /**
+     * Removes any iv combination which isn't in a mask, such as the one of all the appraisal answers given by
+     * AppraisalMasks.getMask.
+     */
+    public void refineByMask(IVSet mask) {
+        iVCombinations.retainAll(mask);
+    }
 
-            if (comb.getHighestStat() >= lowest && comb.getHighestStat() <= highest) {
-                refinedList.add(comb);
-            }
+    /**
+     * Which of the scanned values the IV combinations were calculated from. When the HP or the CP couldn't be read,
+     * the combinations are calculated from the rest, so that the user doesn't have to type it.
+     */
+    public enum Inputs {
+        HP_AND_CP(true),
+        /**
+         * The CP, and a range of HP such as the HP being at least the current HP.
+         */
+        CP_AND_HP_RANGE(true),
+        CP_ONLY(true),
+        HP_ONLY(false);
+
+        public final boolean usesCP;
+
+        Inputs(boolean usesCP) {
+            this.usesCP = usesCP;
         }
-        iVCombinations = refinedList;
     }
 }
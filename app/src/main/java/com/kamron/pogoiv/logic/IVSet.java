@@ -0,0 +1,300 @@
+package com.kamron.pogoiv.logic;
+
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of IV combinations, stored as one bit per combination in 64 longs. The bit of a combination is its
+ * SpeciesStatTable.ivIndex, so the set is iterated by stamina, defense then attack IV.
+ * Set operations and filters work a whole word at a time, and the combinations returned come from the shared
+ * IVCombination table, so nothing is allocated per combination.
+ */
+public class IVSet implements Iterable<IVCombination> {
+    private static final int IV_COUNT = SpeciesStatTable.IV_COUNT;
+    private static final int SIZE = IV_COUNT * IV_COUNT * IV_COUNT;
+    private static final int WORD_COUNT = SIZE / 64;
+    private static final int MAX_TOTAL = 3 * (IV_COUNT - 1);
+
+    /**
+     * The combinations of each total (att + def + sta).
+     */
+    private static final long[][] TOTAL_MASKS = new long[MAX_TOTAL + 1][WORD_COUNT];
+    /**
+     * The combinations of each highest stat.
+     */
+    private static final long[][] HIGHEST_STAT_MASKS = new long[IV_COUNT][WORD_COUNT];
+    /**
+     * The combinations of each highest stat signature, indexed by att << 2 | def << 1 | sta.
+     */
+    private static final long[][] SIGNATURE_MASKS = new long[8][WORD_COUNT];
+
+    static {
+        for (int code = 0; code < SIZE; code++) {
+            IVCombination combination = IVCombination.get(code);
+            setBit(TOTAL_MASKS[combination.getTotal()], code);
+            setBit(HIGHEST_STAT_MASKS[combination.getHighestStat()], code);
+            Boolean[] signature = combination.getHighestStatSignature();
+            setBit(SIGNATURE_MASKS[signatureIndex(signature[0], signature[1], signature[2])], code);
+        }
+    }
+
+    private final long[] words = new long[WORD_COUNT];
+
+    /**
+     * Creates an empty set.
+     */
+    public IVSet() {
+    }
+
+    /**
+     * Creates a copy of a set.
+     */
+    public IVSet(IVSet other) {
+        System.arraycopy(other.words, 0, words, 0, WORD_COUNT);
+    }
+
+    /**
+     * Creates a set of all the 4096 IV combinations.
+     */
+    public static IVSet full() {
+        IVSet set = new IVSet();
+        Arrays.fill(set.words, -1L);
+        return set;
+    }
+
+    /**
+     * Get the intersection of two sets, as a new set.
+     */
+    public static IVSet intersection(IVSet a, IVSet b) {
+        IVSet result = new IVSet(a);
+        result.retainAll(b);
+        return result;
+    }
+
+    private static void setBit(long[] mask, int code) {
+        mask[code >>> 6] |= 1L << code;
+    }
+
+    private static int signatureIndex(boolean att, boolean def, boolean sta) {
+        return (att ? 4 : 0) | (def ? 2 : 0) | (sta ? 1 : 0);
+    }
+
+    public void add(int attackIV, int defenseIV, int staminaIV) {
+        setBit(words, SpeciesStatTable.ivIndex(attackIV, defenseIV, staminaIV));
+    }
+
+    public boolean contains(int attackIV, int defenseIV, int staminaIV) {
+        int code = SpeciesStatTable.ivIndex(attackIV, defenseIV, staminaIV);
+        return (words[code >>> 6] & (1L << code)) != 0;
+    }
+
+    public boolean contains(IVCombination combination) {
+        return contains(combination.att, combination.def, combination.sta);
+    }
+
+    /**
+     * Removes all combinations which aren't in another set.
+     */
+    public void retainAll(IVSet other) {
+        for (int i = 0; i < WORD_COUNT; i++) {
+            words[i] &= other.words[i];
+        }
+    }
+
+    /**
+     * Adds all the combinations of another set.
+     */
+    public void addAll(IVSet other) {
+        for (int i = 0; i < WORD_COUNT; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the first combination of the set in iteration order.
+     *
+     * @return The combination, or null if the set is empty.
+     */
+    public @Nullable IVCombination first() {
+        return firstIn(null);
+    }
+
+    /**
+     * Get the first combination of the set, in iteration order, which is also in a mask.
+     */
+    private @Nullable IVCombination firstIn(@Nullable long[] mask) {
+        for (int i = 0; i < WORD_COUNT; i++) {
+            long word = mask == null ? words[i] : words[i] & mask[i];
+            if (word != 0) {
+                return IVCombination.get(i << 6 | Long.numberOfTrailingZeros(word));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the combination with the lowest total, the first one in iteration order if several are tied.
+     *
+     * @return The combination, or null if the set is empty.
+     */
+    public @Nullable IVCombination getLowestTotal() {
+        for (int total = 0; total <= MAX_TOTAL; total++) {
+            IVCombination combination = firstIn(TOTAL_MASKS[total]);
+            if (combination != null) {
+                return combination;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the combination with the highest total, the first one in iteration order if several are tied.
+     *
+     * @return The combination, or null if the set is empty.
+     */
+    public @Nullable IVCombination getHighestTotal() {
+        for (int total = MAX_TOTAL; total >= 0; total--) {
+            IVCombination combination = firstIn(TOTAL_MASKS[total]);
+            if (combination != null) {
+                return combination;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the sum of the totals (att + def + sta) of all the combinations.
+     */
+    public int getTotalSum() {
+        int sum = 0;
+        for (int total = 1; total <= MAX_TOTAL; total++) {
+            long[] mask = TOTAL_MASKS[total];
+            int count = 0;
+            for (int i = 0; i < WORD_COUNT; i++) {
+                count += Long.bitCount(words[i] & mask[i]);
+            }
+            sum += total * count;
+        }
+        return sum;
+    }
+
+    /**
+     * Removes the combinations whose highest stat signature, as given by IVCombination.getHighestStatSignature,
+     * isn't the given one.
+     */
+    public void retainHighestStatSignature(boolean attIsHighest, boolean defIsHighest, boolean staIsHighest) {
+        retainMask(SIGNATURE_MASKS[signatureIndex(attIsHighest, defIsHighest, staIsHighest)]);
+    }
+
+    /**
+     * Removes the combinations whose highest stat is outside of a range.
+     *
+     * @param lowest  The lowest highest stat kept.
+     * @param highest The highest highest stat kept.
+     */
+    public void retainHighestStatRange(int lowest, int highest) {
+        retainUnionOf(HIGHEST_STAT_MASKS, Math.max(lowest, 0), Math.min(highest, IV_COUNT - 1));
+    }
+
+    /**
+     * Removes the combinations whose percent perfect is outside of a range.
+     *
+     * @param lowest  The lowest percent kept.
+     * @param highest The highest percent kept.
+     */
+    public void retainPercentPerfectRange(int lowest, int highest) {
+        //The percent grows with the total, so the totals kept are a range too.
+        int lowestTotal = 0;
+        while (lowestTotal <= MAX_TOTAL && IVCombination.getPercentPerfect(lowestTotal) < lowest) {
+            lowestTotal++;
+        }
+        int highestTotal = MAX_TOTAL;
+        while (highestTotal >= 0 && IVCombination.getPercentPerfect(highestTotal) > highest) {
+            highestTotal--;
+        }
+        retainUnionOf(TOTAL_MASKS, lowestTotal, highestTotal);
+    }
+
+    private void retainMask(long[] mask) {
+        for (int i = 0; i < WORD_COUNT; i++) {
+            words[i] &= mask[i];
+        }
+    }
+
+    private void retainUnionOf(long[][] masks, int from, int to) {
+        for (int i = 0; i < WORD_COUNT; i++) {
+            long union = 0;
+            for (int m = from; m <= to; m++) {
+                union |= masks[m][i];
+            }
+            words[i] &= union;
+        }
+    }
+
+    @Override
+    public Iterator<IVCombination> iterator() {
+        return new Iterator<IVCombination>() {
+            private int wordIndex = 0;
+            private long word = words[0];
+
+            @Override public boolean hasNext() {
+                while (word == 0 && wordIndex < WORD_COUNT - 1) {
+                    word = words[++wordIndex];
+                }
+                return word != 0;
+            }
+
+            @Override public IVCombination next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int bit = Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                return IVCombination.get(wordIndex << 6 | bit);
+            }
+
+            @Override public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof IVSet && Arrays.equals(words, ((IVSet) o).words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return "IVSet[size=" + size() + "]";
+    }
+}
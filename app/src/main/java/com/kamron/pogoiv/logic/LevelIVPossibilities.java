@@ -0,0 +1,83 @@
+package com.kamron.pogoiv.logic;
+
+import com.google.common.base.Optional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The IV combinations giving a scanned HP and CP at each level of a range, for when the level read from the arc
+ * can't be fully trusted.
+ */
+public class LevelIVPossibilities {
+    private final int lowestLevelIdx;
+    /**
+     * The combinations of each level of the range, starting at lowestLevelIdx.
+     */
+    private final IVSet[] possibilities;
+
+    LevelIVPossibilities(int lowestLevelIdx, IVSet[] possibilities) {
+        this.lowestLevelIdx = lowestLevelIdx;
+        this.possibilities = possibilities;
+    }
+
+    /**
+     * Get the IV combinations possible at a level.
+     *
+     * @return The combinations, empty if the level is outside of the range or can't give the HP and CP.
+     */
+    public IVSet getPossibilities(double level) {
+        int i = Data.levelToLevelIdx(level) - lowestLevelIdx;
+        if (i < 0 || i >= possibilities.length) {
+            return new IVSet();
+        }
+        return possibilities[i];
+    }
+
+    /**
+     * Get the levels of the range at which some IV combination gives the HP and CP, in increasing order.
+     */
+    public List<Double> getLevels() {
+        List<Double> levels = new ArrayList<>();
+        for (int i = 0; i < possibilities.length; i++) {
+            if (!possibilities[i].isEmpty()) {
+                levels.add(Data.levelIdxToLevel(lowestLevelIdx + i));
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * Checks if no level of the range can give the HP and CP, which means they were misread.
+     */
+    public boolean isEmpty() {
+        for (IVSet levelPossibilities : possibilities) {
+            if (!levelPossibilities.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the level which is consistent with the HP and CP and closest to an estimation, such as the one read from
+     * the arc. When two levels are as close, the lower one is picked.
+     *
+     * @param estimatedLevel The estimated level.
+     * @return The level, which is estimatedLevel if it's consistent, or absent if no level of the range is.
+     */
+    public Optional<Double> getConsistentLevel(double estimatedLevel) {
+        int estimatedIdx = Data.levelToLevelIdx(estimatedLevel) - lowestLevelIdx;
+        int bestIdx = -1;
+        for (int i = 0; i < possibilities.length; i++) {
+            if (!possibilities[i].isEmpty()
+                    && (bestIdx < 0 || Math.abs(i - estimatedIdx) < Math.abs(bestIdx - estimatedIdx))) {
+                bestIdx = i;
+            }
+        }
+        if (bestIdx < 0) {
+            return Optional.absent();
+        }
+        return Optional.of(Data.levelIdxToLevel(lowestLevelIdx + bestIdx));
+    }
+}
@@ -1,10 +1,20 @@
 package com.kamron.pogoiv.logic;
 
 
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Created by Johan Swanberg on 2016-08-18.
@@ -22,12 +32,60 @@ public class PokeInfoCalculator {
 
     private HashMap<String, Pokemon> pokemap = new HashMap<>();
 
+    /**
+     * The names and display names of all pokemon, and of the base pokemons only, along with the names in the other
+     * languages given, to find the pokemon closest to a scanned name.
+     */
+    private final PokemonNameIndex nameIndex = new PokemonNameIndex();
+    private final PokemonNameIndex baseNameIndex = new PokemonNameIndex();
+
+    /**
+     * The evolution index, built once from the devolutions so that evolution queries don't walk the chains:
+     * the number of the lowest evolution of each pokemon, the unmodifiable evolution line of each lowest evolution,
+     * the last evolution of each pokemon, and the candy it costs to evolve each pokemon into each other one.
+     */
+    private int[] lowestEvolutions;
+    private List<List<Pokemon>> evolutionLines;
+    private Pokemon[] lastEvolutions;
+    private int[][] evolutionCandyCosts;
+
+    /**
+     * The stat table of each pokemon, indexed by number, built the first time the pokemon is checked.
+     */
+    private SpeciesStatTable[] statTables;
+
+    /**
+     * The IV index of each pokemon, built the first time its IVs are searched. They take up to 1MB each, so they
+     * are only softly kept.
+     */
+    private final LoadingCache<Pokemon, IVIndex> ivIndexes = CacheBuilder.newBuilder()
+            .softValues()
+            .build(new CacheLoader<Pokemon, IVIndex>() {
+                @Override public IVIndex load(Pokemon pokemon) {
+                    return new IVIndex(getStatTable(pokemon));
+                }
+            });
+
     public static PokeInfoCalculator getInstance(String[] namesArray, String[] displayNamesArray,
                                                  int[] attackArray, int[] defenceArray, int[] staminaArray,
                                                  int[] devolutionArray, int[] evolutionCandyCostArray) {
+        return getInstance(namesArray, displayNamesArray, new String[0][], attackArray, defenceArray, staminaArray,
+                devolutionArray, evolutionCandyCostArray);
+    }
+
+    /**
+     * Get the instance of pokeinfoCalculator, creating it if needed.
+     *
+     * @param localeNamesArrays arrays of all pokemon names in other languages, which are only used to recognize
+     *                          scanned names
+     */
+    public static PokeInfoCalculator getInstance(String[] namesArray, String[] displayNamesArray,
+                                                 String[][] localeNamesArrays, int[] attackArray,
+                                                 int[] defenceArray, int[] staminaArray, int[] devolutionArray,
+                                                 int[] evolutionCandyCostArray) {
         if (instance == null) {
-            instance = new PokeInfoCalculator(namesArray, displayNamesArray, attackArray, defenceArray,
-                    staminaArray, devolutionArray, evolutionCandyCostArray);
+            instance = new PokeInfoCalculator(namesArray, displayNamesArray, localeNamesArrays, attackArray,
+                    defenceArray, staminaArray, devolutionArray, evolutionCandyCostArray);
         }
         return instance;
     }
@@ -46,16 +104,18 @@ public class PokeInfoCalculator {
      *
      * @param namesArray        array of all pokemon names
      * @param displayNamesArray array of all pokemon display names
+     * @param localeNamesArrays arrays of all pokemon names in other languages
      * @param attackArray       array of all pokemon base attack stat
      * @param defenceArray      array of all pokemon base def stat
      * @param staminaArray      array of all pokemon base stam stat
      * @param devolutionArray   array of what the pokemon evolved from, -1 if no devolution
      */
-    private PokeInfoCalculator(String[] namesArray, String[] displayNamesArray, int[] attackArray,
-                               int[] defenceArray, int[] staminaArray, int[] devolutionArray,
+    private PokeInfoCalculator(String[] namesArray, String[] displayNamesArray, String[][] localeNamesArrays,
+                               int[] attackArray, int[] defenceArray, int[] staminaArray, int[] devolutionArray,
                                int[] evolutionCandyCostArray) {
         populatePokemon(namesArray, displayNamesArray, attackArray, defenceArray, staminaArray, devolutionArray,
                 evolutionCandyCostArray);
+        indexNames(localeNamesArrays);
     }
 
     public List<Pokemon> getPokedex() {
@@ -109,6 +169,114 @@ public class PokeInfoCalculator {
                 basePokemons.add(pokedex.get(i));
             }
         }
+        statTables = new SpeciesStatTable[pokeListSize];
+        indexEvolutions();
+    }
+
+    /**
+     * Builds the name indexes from the pokedex and the names in other languages. Arrays of another length than the
+     * pokedex are skipped, since their names can't be matched to pokemon numbers.
+     */
+    private void indexNames(String[][] localeNamesArrays) {
+        for (Pokemon poke : pokedex) {
+            nameIndex.add(poke.name, poke);
+            nameIndex.add(poke.toString(), poke);
+        }
+        for (String[] localeNames : localeNamesArrays) {
+            if (localeNames.length != pokedex.size()) {
+                continue;
+            }
+            for (int i = 0; i < localeNames.length; i++) {
+                nameIndex.add(localeNames[i], pokedex.get(i));
+            }
+        }
+        for (Pokemon base : basePokemons) {
+            baseNameIndex.add(base.name, base);
+            baseNameIndex.add(base.toString(), base);
+            for (String[] localeNames : localeNamesArrays) {
+                if (localeNames.length == pokedex.size()) {
+                    baseNameIndex.add(localeNames[base.number], base);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the pokemon whose names, in any indexed language, are closest to a scanned text.
+     *
+     * @param text  The scanned text.
+     * @param count The highest number of pokemon to return.
+     * @return Up to count pokemon with their distance to the text, the closest first.
+     */
+    public List<PokemonNameCorrector.PokeDist> getClosestPokemons(String text, int count) {
+        return nameIndex.getClosest(text, count);
+    }
+
+    /**
+     * Get the base pokemons whose names, in any indexed language, are closest to a scanned text.
+     *
+     * @param text  The scanned text.
+     * @param count The highest number of pokemon to return.
+     * @return Up to count base pokemons with their distance to the text, the closest first.
+     */
+    public List<PokemonNameCorrector.PokeDist> getClosestBasePokemons(String text, int count) {
+        return baseNameIndex.getClosest(text, count);
+    }
+
+    /**
+     * Builds the evolution index from the devolutions of the pokedex.
+     */
+    private void indexEvolutions() {
+        int pokeListSize = pokedex.size();
+        lowestEvolutions = new int[pokeListSize];
+        evolutionLines = new ArrayList<>(Collections.<List<Pokemon>>nCopies(pokeListSize, null));
+        lastEvolutions = new Pokemon[pokeListSize];
+        evolutionCandyCosts = new int[pokeListSize][pokeListSize];
+
+        for (Pokemon poke : pokedex) {
+            Pokemon lowest = poke;
+            while (lowest.devoNumber >= 0) {
+                lowest = pokedex.get(lowest.devoNumber);
+            }
+            lowestEvolutions[poke.number] = lowest.number;
+
+            //Only the evolutions two steps after a pokemon are counted, which is the longest chain.
+            int cost = 0;
+            Pokemon devolution = poke;
+            for (int steps = 0; steps < 2 && devolution.devoNumber >= 0; steps++) {
+                devolution = pokedex.get(devolution.devoNumber);
+                cost += devolution.candyEvolutionCost;
+                evolutionCandyCosts[devolution.number][poke.number] = cost;
+            }
+        }
+
+        for (Pokemon base : basePokemons) {
+            ArrayList<Pokemon> line = new ArrayList<>();
+            line.add(base); //add self
+            line.addAll(base.evolutions); //add all immediate evolutions
+            for (Pokemon evolution : base.evolutions) {
+                line.addAll(evolution.evolutions);
+            }
+            evolutionLines.set(base.number, Collections.unmodifiableList(line));
+        }
+
+        for (Pokemon poke : pokedex) {
+            //A pokemon without evolutions is its own last evolution, even if its line goes on in another branch.
+            List<Pokemon> line = evolutionLines.get(lowestEvolutions[poke.number]);
+            lastEvolutions[poke.number] = poke.evolutions.isEmpty() ? poke : line.get(line.size() - 1);
+        }
+    }
+
+    /**
+     * Get the precomputed CP and HP of a pokemon.
+     */
+    public synchronized SpeciesStatTable getStatTable(Pokemon pokemon) {
+        SpeciesStatTable table = statTables[pokemon.number];
+        if (table == null) {
+            table = new SpeciesStatTable(pokemon);
+            statTables[pokemon.number] = table;
+        }
+        return table;
     }
 
     /**
@@ -117,55 +285,30 @@ public class PokeInfoCalculator {
      *
      * @param goalLevel             The level to reach
      * @param estimatedPokemonLevel The estimated level of hte pokemon
-     * @return The text that shows the amount of candy and stardust needed.
+     * @return The candy and stardust needed, which are 0 if the goal level isn't higher than the pokemon level.
      */
     public UpgradeCost getUpgradeCost(double goalLevel, double estimatedPokemonLevel) {
-        int neededCandy = 0;
-        int neededStarDust = 0;
-        while (estimatedPokemonLevel != goalLevel) {
-            int rank = 5;
-            if ((estimatedPokemonLevel % 10) >= 1 && (estimatedPokemonLevel % 10) <= 2.5) {
-                rank = 1;
-            } else if ((estimatedPokemonLevel % 10) > 2.5 && (estimatedPokemonLevel % 10) <= 4.5) {
-                rank = 2;
-            } else if ((estimatedPokemonLevel % 10) > 4.5 && (estimatedPokemonLevel % 10) <= 6.5) {
-                rank = 3;
-            } else if ((estimatedPokemonLevel % 10) > 6.5 && (estimatedPokemonLevel % 10) <= 8.5) {
-                rank = 4;
-            }
-
-            if (estimatedPokemonLevel <= 10.5) {
-                neededCandy++;
-                neededStarDust += rank * 200;
-            } else if (estimatedPokemonLevel > 10.5 && estimatedPokemonLevel <= 20.5) {
-                neededCandy += 2;
-                neededStarDust += 1000 + (rank * 300);
-            } else if (estimatedPokemonLevel > 20.5 && estimatedPokemonLevel <= 25.5) {
-                neededCandy += 3;
-                neededStarDust += 2500 + (rank * 500);
-            } else if (estimatedPokemonLevel > 25.5 && estimatedPokemonLevel <= 30.5) {
-                neededCandy += 4;
-                neededStarDust += 2500 + (rank * 500);
-            } else if (estimatedPokemonLevel > 30.5 && estimatedPokemonLevel <= 32.5) {
-                neededCandy += 6;
-                neededStarDust += 5000 + (rank * 1000);
-            } else if (estimatedPokemonLevel > 32.5 && estimatedPokemonLevel <= 34.5) {
-                neededCandy += 8;
-                neededStarDust += 5000 + (rank * 1000);
-            } else if (estimatedPokemonLevel > 34.5 && estimatedPokemonLevel <= 36.5) {
-                neededCandy += 10;
-                neededStarDust += 5000 + (rank * 1000);
-            } else if (estimatedPokemonLevel > 36.5 && estimatedPokemonLevel <= 38.5) {
-                neededCandy += 12;
-                neededStarDust += 5000 + (rank * 1000);
-            } else if (estimatedPokemonLevel > 38.5) {
-                neededCandy += 15;
-                neededStarDust += 5000 + (rank * 1000);
-            }
+        int fromLevelIdx = Data.levelToLevelIdx(estimatedPokemonLevel);
+        int toLevelIdx = Data.levelToLevelIdx(goalLevel);
+        return new UpgradeCost(Data.getPowerUpStardustCost(fromLevelIdx, toLevelIdx),
+                Data.getPowerUpCandyCost(fromLevelIdx, toLevelIdx));
+    }
 
-            estimatedPokemonLevel += 0.5;
+    /**
+     * Gets the needed candy and stardust of many power ups at once, such as to plan the power ups of several
+     * pokemon.
+     *
+     * @param fromLevelIdxs The level indexes of the pokemon.
+     * @param toLevelIdxs   The level indexes to reach, at the same positions.
+     * @return The cost of each power up, at the same positions.
+     */
+    public UpgradeCost[] getUpgradeCosts(int[] fromLevelIdxs, int[] toLevelIdxs) {
+        UpgradeCost[] costs = new UpgradeCost[fromLevelIdxs.length];
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = new UpgradeCost(Data.getPowerUpStardustCost(fromLevelIdxs[i], toLevelIdxs[i]),
+                    Data.getPowerUpCandyCost(fromLevelIdxs[i], toLevelIdxs[i]));
         }
-        return new UpgradeCost(neededStarDust, neededCandy);
+        return costs;
     }
 
 
@@ -181,38 +324,137 @@ public class PokeInfoCalculator {
      */
     public IVScanResult getIVPossibilities(Pokemon selectedPokemon, double estimatedPokemonLevel, int pokemonHP,
                                            int pokemonCP) {
-        int baseAttack = selectedPokemon.baseAttack;
-        int baseDefense = selectedPokemon.baseDefense;
-        int baseStamina = selectedPokemon.baseStamina;
+        int levelIdx = Data.levelToLevelIdx(estimatedPokemonLevel);
+        short[] ivCodes = ivIndexes.getUnchecked(selectedPokemon).findIVCodes(levelIdx, pokemonHP, pokemonCP);
 
-        double lvlScalar = Data.getLevelCpM(estimatedPokemonLevel);
-        double lvlScalarPow2 = Math.pow(lvlScalar, 2) * 0.1; // instead of computing again in every loop
-        //IV vars for lower and upper end cp ranges
+        IVScanResult returner = ScanContainer.createIVScanResult(selectedPokemon, estimatedPokemonLevel, pokemonCP);
+        for (short ivCode : ivCodes) {
+            returner.addIVCombination(IVIndex.getAttackIV(ivCode), IVIndex.getDefenseIV(ivCode),
+                    IVIndex.getStaminaIV(ivCode));
+        }
+
+        returner.scannedHP = pokemonHP;
+        return returner;
+    }
 
+    /**
+     * Calculates the IV combinations that can be gained from the pokemon level and whichever of the hp and cp could
+     * be read, for when the other couldn't.
+     *
+     * @param estimatedPokemonLevel The estimated pokemon level
+     * @param lowestHP              The lowest possible hp, which is the hp if it's known
+     * @param highestHP             The highest possible hp, which is the hp if it's known, or Integer.MAX_VALUE
+     * @param pokemonCP             The pokemon cp, or absent if it's unknown
+     * @return An IVScanResult with the combinations, and which inputs they were calculated from.
+     */
+    public IVScanResult getIVPossibilities(Pokemon selectedPokemon, double estimatedPokemonLevel, int lowestHP,
+                                           int highestHP, Optional<Integer> pokemonCP) {
+        if (lowestHP == highestHP && pokemonCP.isPresent()) {
+            return getIVPossibilities(selectedPokemon, estimatedPokemonLevel, lowestHP, pokemonCP.get());
+        }
 
-        IVScanResult returner = ScanContainer.createIVScanResult(selectedPokemon, estimatedPokemonLevel, pokemonCP);
-        for (int staminaIV = 0; staminaIV < 16; staminaIV++) {
-            int hp = (int) Math.max(Math.floor((baseStamina + staminaIV) * lvlScalar), 10);
-            if (hp == pokemonHP) {
-                double lvlScalarStamina = Math.sqrt(baseStamina + staminaIV) * lvlScalarPow2;
-                for (int defenseIV = 0; defenseIV < 16; defenseIV++) {
-                    for (int attackIV = 0; attackIV < 16; attackIV++) {
-                        int cp = Math.max(10, (int) Math.floor((baseAttack + attackIV) * Math.sqrt(baseDefense
-                                + defenseIV) * lvlScalarStamina));
-                        if (cp == pokemonCP) {
-                            returner.addIVCombination(attackIV, defenseIV, staminaIV);
-                        }
+        SpeciesStatTable statTable = getStatTable(selectedPokemon);
+        int levelIdx = Data.levelToLevelIdx(estimatedPokemonLevel);
+        int[] cpTable = pokemonCP.isPresent() ? statTable.getCpTable(levelIdx) : null;
+        int cp = pokemonCP.or(0);
+        IVScanResult returner = ScanContainer.createIVScanResult(selectedPokemon, estimatedPokemonLevel, cp);
+        for (int staminaIV = 0; staminaIV < SpeciesStatTable.IV_COUNT; staminaIV++) {
+            int hp = statTable.getHp(levelIdx, staminaIV);
+            if (hp < lowestHP || hp > highestHP) {
+                continue;
+            }
+            for (int defenseIV = 0; defenseIV < SpeciesStatTable.IV_COUNT; defenseIV++) {
+                for (int attackIV = 0; attackIV < SpeciesStatTable.IV_COUNT; attackIV++) {
+                    if (cpTable == null || cpTable[SpeciesStatTable.ivIndex(attackIV, defenseIV, staminaIV)] == cp) {
+                        returner.addIVCombination(attackIV, defenseIV, staminaIV);
                     }
                 }
-            } else if (hp > pokemonHP) {
-                break;
             }
         }
 
-        returner.scannedHP = pokemonHP;
+        if (!pokemonCP.isPresent()) {
+            returner.usedInputs = IVScanResult.Inputs.HP_ONLY;
+        } else if (lowestHP <= statTable.getHp(levelIdx, 0)
+                && highestHP >= statTable.getHp(levelIdx, SpeciesStatTable.IV_COUNT - 1)) {
+            returner.usedInputs = IVScanResult.Inputs.CP_ONLY;
+        } else {
+            returner.usedInputs = IVScanResult.Inputs.CP_AND_HP_RANGE;
+        }
+        if (lowestHP == highestHP) {
+            returner.scannedHP = lowestHP;
+        }
         return returner;
     }
 
+    /**
+     * Keeps the candidates for a scanned pokemon which can have its hp and cp, at the level read from the arc or the
+     * levels next to it, since the arc is sometimes read a half level off. The candidates are checked in parallel.
+     *
+     * @param candidates            The candidate pokemon, the most likely first.
+     * @param estimatedPokemonLevel The level read from the arc.
+     * @param pokemonHP             The scanned hp.
+     * @param pokemonCP             The scanned cp.
+     * @param executor              The executor checking the candidates.
+     * @return The candidates which have IV combinations giving the hp and cp, in the same order.
+     * @throws InterruptedException if the thread was interrupted while the candidates were checked.
+     */
+    public List<PokemonNameCorrector.PokeDist> getFeasibleCandidates(List<PokemonNameCorrector.PokeDist> candidates,
+                                                                     double estimatedPokemonLevel,
+                                                                     final int pokemonHP, final int pokemonCP,
+                                                                     ExecutorService executor)
+            throws InterruptedException {
+        final int levelIdx = Data.levelToLevelIdx(estimatedPokemonLevel);
+        List<Callable<Boolean>> checks = new ArrayList<>(candidates.size());
+        for (final PokemonNameCorrector.PokeDist candidate : candidates) {
+            checks.add(new Callable<Boolean>() {
+                @Override public Boolean call() {
+                    return !getIVPossibilitiesAtLevels(candidate.pokemon, levelIdx - 1, levelIdx + 1, pokemonHP,
+                            pokemonCP).isEmpty();
+                }
+            });
+        }
+
+        List<Future<Boolean>> results = executor.invokeAll(checks);
+        List<PokemonNameCorrector.PokeDist> feasible = new ArrayList<>();
+        try {
+            for (int i = 0; i < candidates.size(); i++) {
+                if (results.get(i).get()) {
+                    feasible.add(candidates.get(i));
+                }
+            }
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+        return feasible;
+    }
+
+    /**
+     * Calculates the IV combinations giving the pokemon hp and cp at each level of a range in one sweep, for when
+     * the level read from the arc may be off. Levels which can't give the hp and cp are skipped from the bounds of
+     * their CP and HP tables, without searching their IVs.
+     *
+     * @param lowestLevelIdx  The level index of the lowest level to check, clamped to the existing levels.
+     * @param highestLevelIdx The level index of the highest level to check, clamped to the existing levels.
+     * @param pokemonHP       The pokemon hp
+     * @param pokemonCP       The pokemon cp
+     * @return The combinations possible at each level of the range.
+     */
+    public LevelIVPossibilities getIVPossibilitiesAtLevels(Pokemon selectedPokemon, int lowestLevelIdx,
+                                                           int highestLevelIdx, int pokemonHP, int pokemonCP) {
+        lowestLevelIdx = Math.max(0, lowestLevelIdx);
+        highestLevelIdx = Math.min(Data.getLevelIdxCount() - 1, highestLevelIdx);
+        IVIndex ivIndex = ivIndexes.getUnchecked(selectedPokemon);
+
+        IVSet[] possibilities = new IVSet[Math.max(0, highestLevelIdx - lowestLevelIdx + 1)];
+        for (int i = 0; i < possibilities.length; i++) {
+            possibilities[i] = new IVSet();
+            for (short ivCode : ivIndex.findIVCodes(lowestLevelIdx + i, pokemonHP, pokemonCP)) {
+                possibilities[i].add(IVIndex.getAttackIV(ivCode), IVIndex.getDefenseIV(ivCode),
+                        IVIndex.getStaminaIV(ivCode));
+            }
+        }
+        return new LevelIVPossibilities(lowestLevelIdx, possibilities);
+    }
 
     /**
      * getCpAtRangeLeve
@@ -228,15 +470,10 @@ public class PokeInfoCalculator {
      * @return CPrange containing the CP range including the specified level.
      */
     public CPRange getCpRangeAtLevel(Pokemon pokemon, IVCombination low, IVCombination high, double level) {
-        int baseAttack = pokemon.baseAttack;
-        int baseDefense = pokemon.baseDefense;
-        int baseStamina = pokemon.baseStamina;
-        double lvlScalar = Data.getLevelCpM(level);
-        int cpMin = (int) Math.floor(
-                (baseAttack + low.att) * Math.sqrt(baseDefense + low.def) * Math.sqrt(baseStamina + low.sta)
-                        * Math.pow(lvlScalar, 2) * 0.1);
-        int cpMax = (int) Math.floor((baseAttack + high.att) * Math.sqrt(baseDefense + high.def)
-                * Math.sqrt(baseStamina + high.sta) * Math.pow(lvlScalar, 2) * 0.1);
+        SpeciesStatTable statTable = getStatTable(pokemon);
+        int levelIdx = Data.levelToLevelIdx(level);
+        int cpMin = statTable.getRangeCp(levelIdx, low.att, low.def, low.sta);
+        int cpMax = statTable.getRangeCp(levelIdx, high.att, high.def, high.sta);
         if (cpMin > cpMax) {
             int tmp = cpMax;
             cpMax = cpMin;
@@ -252,26 +489,10 @@ public class PokeInfoCalculator {
      *
      * @param start which pokemon to start from
      * @param end   the end evolution
-     * @return the combined candy cost for all required evolutions
+     * @return the combined candy cost for all required evolutions, 0 if end isn't an evolution of start
      */
     public int getCandyCostForEvolution(Pokemon start, Pokemon end) {
-        Pokemon devolution = get(end.devoNumber);
-        Pokemon dedevolution = null;
-        if (devolution != null) { //devolution must exist for there to be a devolution of the devolution
-            dedevolution = get(devolution.devoNumber);
-        }
-
-        boolean isEndReallyAfterStart = (devolution == start)
-                || dedevolution == start; //end must be devolution or devolution of devolution of start
-        int cost = 0;
-        if (isInSameEvolutionChain(start, end) && isEndReallyAfterStart) {
-            while (start != end) { //move backwards from end until you've reached start
-                Pokemon beforeEnd = get(end.devoNumber);
-                cost += beforeEnd.candyEvolutionCost;
-                end = beforeEnd;
-            }
-        }
-        return cost;
+        return evolutionCandyCosts[start.number][end.number];
     }
 
     /**
@@ -281,14 +502,8 @@ public class PokeInfoCalculator {
      * @param p2 second pokemon
      * @return true if both pokemon are in the same pokemon evolution tree
      */
-    private boolean isInSameEvolutionChain(Pokemon p1, Pokemon p2) {
-        ArrayList<Pokemon> evolutionLine = getEvolutionLine(p1);
-        for (Pokemon poke : evolutionLine) {
-            if (poke.number == p2.number) {
-                return true;
-            }
-        }
-        return false;
+    public boolean isInSameEvolutionChain(Pokemon p1, Pokemon p2) {
+        return lowestEvolutions[p1.number] == lowestEvolutions[p2.number];
     }
 
     /**
@@ -297,35 +512,29 @@ public class PokeInfoCalculator {
      * @param poke a pokemon, example charizard
      * @return a pokemon, in the example would return charmander
      */
-    private Pokemon getLowestEvolution(Pokemon poke) {
-        if (poke.devoNumber < 0) {
-            return poke; //already lowest evolution
-        }
+    public Pokemon getLowestEvolution(Pokemon poke) {
+        return pokedex.get(lowestEvolutions[poke.number]);
+    }
 
-        Pokemon devoPoke = get(poke.devoNumber);
-        while (devoPoke.devoNumber >= 0) { //while devol
-            devoPoke = get(devoPoke.devoNumber);
-        }
-        return devoPoke;
+    /**
+     * Get the last evolution of a pokemon, which is the pokemon itself if it can't evolve. For a pokemon with
+     * several possible evolutions, like eevee, it's the last one of its evolution line.
+     *
+     * @param poke a pokemon, example charmander
+     * @return a pokemon, in the example would return charizard
+     */
+    public Pokemon getLastEvolution(Pokemon poke) {
+        return lastEvolutions[poke.number];
     }
 
     /**
      * Returns the evolution line of a pokemon.
      *
      * @param poke the pokemon to check the evolution line of
-     * @return a list with pokemon, input pokemon plus its evolutions
+     * @return an unmodifiable list with the lowest evolution of the pokemon, then its evolutions
      */
-    public ArrayList<Pokemon> getEvolutionLine(Pokemon poke) {
-        poke = getLowestEvolution(poke);
-
-        ArrayList<Pokemon> list = new ArrayList<>();
-        list.add(poke); //add self
-        list.addAll(poke.evolutions); //add all immediate evolutions
-        for (Pokemon evolution : poke.evolutions) {
-            list.addAll(evolution.evolutions);
-        }
-
-        return list;
+    public List<Pokemon> getEvolutionLine(Pokemon poke) {
+        return evolutionLines.get(lowestEvolutions[poke.number]);
     }
 
     /**
@@ -338,11 +547,10 @@ public class PokeInfoCalculator {
      * @return An integer representing how much hp selectedpokemon with ivscanresult stamina ivs has at selectedlevel
      */
     public int getHPAtLevel(IVScanResult ivScanResult, double selectedLevel, Pokemon selectedPokemon) {
-        double lvlScalar = Data.getLevelCpM(selectedLevel);
-        int highHp = (int) Math.max(Math.floor((selectedPokemon.baseStamina + ivScanResult.highStamina) * lvlScalar),
-                10);
-        int lowHp = (int) Math.max(Math.floor((selectedPokemon.baseStamina + ivScanResult.highStamina) * lvlScalar),
-                10);
+        SpeciesStatTable statTable = getStatTable(selectedPokemon);
+        int levelIdx = Data.levelToLevelIdx(selectedLevel);
+        int highHp = statTable.getHp(levelIdx, ivScanResult.highStamina);
+        int lowHp = statTable.getHp(levelIdx, ivScanResult.highStamina);
         int averageHP = Math.round(highHp + lowHp) / 2;
         return averageHP;
     }
@@ -25,6 +25,11 @@ public class Pokemon {
      */
     private final String displayName;
 
+    /**
+     * The lowercase name, prepared to compute its edit distance to the scanned nicknames.
+     */
+    private final EditDistancePattern lowerCaseNamePattern;
+
     public final int number; //index number in resources, pokedex number - 1
     public final int baseAttack;
     public final int baseDefense;
@@ -43,6 +48,7 @@ public class Pokemon {
         this.devoNumber = devoNumber;
         this.evolutions = new ArrayList<>();
         this.candyEvolutionCost = candyEvolutionCost;
+        this.lowerCaseNamePattern = new EditDistancePattern(name.toLowerCase());
     }
 
     @Override
@@ -51,7 +57,18 @@ public class Pokemon {
     }
 
     public int getDistanceCaseInsensitive(String rhs) {
-        return Data.levenshteinDistance(name.toLowerCase(), rhs.toLowerCase());
+        return lowerCaseNamePattern.distanceTo(rhs.toLowerCase().toCharArray(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get the edit distance between the lowercase name and a lowercase text, without allocating anything.
+     *
+     * @param lowerCaseRhs The lowercase text.
+     * @param maxDistance  The highest distance the caller is interested in.
+     * @return The distance if it's at most maxDistance, or else any value higher than maxDistance.
+     */
+    public int getDistanceCaseInsensitive(char[] lowerCaseRhs, int maxDistance) {
+        return lowerCaseNamePattern.distanceTo(lowerCaseRhs, maxDistance);
     }
 
     public int getDistance(String rhs) {
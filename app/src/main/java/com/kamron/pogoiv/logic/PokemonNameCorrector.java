@@ -2,32 +2,187 @@ package com.kamron.pogoiv.logic;
 
 
 import com.google.common.base.Optional;
+import com.kamron.pogoiv.ocr.EvolutionCostClassifier;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.AllArgsConstructor;
 
 /**
  * Component for user-trainable autocorrection of pokemon names.
- * Responsibility for storing and loading user corrections rests with the caller.
+ * The caller loads the stored user corrections and gives a store to keep the new ones in.
  * Created by pgiarrusso on 5/9/2016.
  */
 public class PokemonNameCorrector {
+    /**
+     * The most user corrections kept, the oldest ones are dropped past it. Each accepted guess of a misread nickname
+     * adds one, and all of them are loaded at startup.
+     */
+    static final int MAX_USER_CORRECTIONS = 1000;
+    /**
+     * The prefix of the keys of the stored user corrections, so that any other entry of the store is skipped.
+     */
+    private static final String USER_CORRECTION_KEY_PREFIX = "correction:";
+    /**
+     * Separates the nickname from the candy name in the keys of the user corrections; it can't be typed.
+     */
+    private static final char USER_CORRECTION_KEY_SEPARATOR = '\u001f';
+
+    /**
+     * The pokemon numbers of the nicknames the game gives to Eevee's evolutions.
+     */
+    private static final Map<String, Integer> EEVEELUTION_NICKNAMES = new HashMap<>();
+
+    static {
+        EEVEELUTION_NICKNAMES.put("Rainer", 133); //Vaporeon
+        EEVEELUTION_NICKNAMES.put("Sparky", 134); //Jolteon
+        EEVEELUTION_NICKNAMES.put("Pyro", 135); //Flareon
+    }
+
     private final PokeInfoCalculator pokeInfoCalculator;
 
+    private final UserCorrectionStore userCorrectionStore;
+
+    /**
+     * The pokemon number the user confirmed for each scanned nickname and candy name, by user correction key.
+     * It's read by the scans while the user adds corrections.
+     */
+    private final Map<String, Integer> userCorrections = new ConcurrentHashMap<>();
+    /**
+     * The keys of the user corrections, from the oldest to the newest. Guarded by this.
+     */
+    private final LinkedHashSet<String> userCorrectionOrder = new LinkedHashSet<>();
+    /**
+     * The order of the next user correction. Guarded by this.
+     */
+    private long nextUserCorrectionOrder = 0;
+
+    /**
+     * Creates a corrector which doesn't keep the corrections of the user.
+     */
     public PokemonNameCorrector(PokeInfoCalculator pokeInfoCalculator) {
+        this(pokeInfoCalculator, Collections.<String, Object>emptyMap(), new UserCorrectionStore() {
+            @Override public void put(String key, long value) {
+            }
+
+            @Override public void remove(String key) {
+            }
+        });
+    }
+
+    /**
+     * Creates a corrector which knows the corrections the user made before, and keeps the new ones.
+     *
+     * @param storedUserCorrections the entries of the store. Those which aren't user corrections are skipped.
+     * @param userCorrectionStore   where the user corrections are added and dropped.
+     */
+    public PokemonNameCorrector(PokeInfoCalculator pokeInfoCalculator, Map<String, ?> storedUserCorrections,
+                                UserCorrectionStore userCorrectionStore) {
         this.pokeInfoCalculator = pokeInfoCalculator;
+        this.userCorrectionStore = userCorrectionStore;
+
+        List<Map.Entry<String, Long>> stored = new ArrayList<>();
+        for (Map.Entry<String, ?> entry : storedUserCorrections.entrySet()) {
+            if (entry.getKey().startsWith(USER_CORRECTION_KEY_PREFIX) && entry.getValue() instanceof Long
+                    && pokeInfoCalculator.get(getStoredPokemonNumber((Long) entry.getValue())) != null) {
+                stored.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), (Long) entry.getValue()));
+            }
+        }
+        Collections.sort(stored, new Comparator<Map.Entry<String, Long>>() {
+            @Override public int compare(Map.Entry<String, Long> lhs, Map.Entry<String, Long> rhs) {
+                long lhsOrder = getStoredOrder(lhs.getValue());
+                long rhsOrder = getStoredOrder(rhs.getValue());
+                return lhsOrder < rhsOrder ? -1 : (lhsOrder == rhsOrder ? 0 : 1);
+            }
+        });
+        synchronized (this) {
+            for (Map.Entry<String, Long> entry : stored) {
+                userCorrections.put(entry.getKey(), getStoredPokemonNumber(entry.getValue()));
+                userCorrectionOrder.add(entry.getKey());
+                nextUserCorrectionOrder = getStoredOrder(entry.getValue()) + 1;
+            }
+            dropOldUserCorrections();
+        }
+    }
+
+    /**
+     * Get the key under which the correction of a scan is stored.
+     *
+     * @param poketext  the scanned pokemon nickname
+     * @param candytext the scanned pokemon candy name
+     * @return a key starting with a prefix no other setting uses
+     */
+    public static String getUserCorrectionKey(String poketext, String candytext) {
+        return USER_CORRECTION_KEY_PREFIX + poketext + USER_CORRECTION_KEY_SEPARATOR
+                + (candytext != null ? candytext : "");
+    }
+
+    /**
+     * Learns which pokemon the user confirmed for a scan, so that the same scan is recognized right away, and
+     * stores it. The oldest correction is dropped once there are more than MAX_USER_CORRECTIONS.
+     *
+     * @param poketext  the scanned pokemon nickname
+     * @param candytext the scanned pokemon candy name
+     * @param pokemon   the pokemon the user confirmed
+     * @return true if the correction is new, false if the scan already gave this pokemon without a guess
+     */
+    public synchronized boolean putUserCorrection(String poketext, String candytext, Pokemon pokemon) {
+        String key = getUserCorrectionKey(poketext, candytext);
+        Integer previous = userCorrections.get(key);
+        if (previous != null ? previous == pokemon.number : pokemon.equals(pokeInfoCalculator.get(poketext))) {
+            return false;
+        }
+        userCorrections.put(key, pokemon.number);
+        //A corrected scan counts as the newest one.
+        userCorrectionOrder.remove(key);
+        userCorrectionOrder.add(key);
+        userCorrectionStore.put(key, ((nextUserCorrectionOrder++) << 32) | pokemon.number);
+        dropOldUserCorrections();
+        return true;
+    }
+
+    /**
+     * Drops the oldest user corrections past MAX_USER_CORRECTIONS, from memory and from the store.
+     */
+    private synchronized void dropOldUserCorrections() {
+        while (userCorrectionOrder.size() > MAX_USER_CORRECTIONS) {
+            String oldest = userCorrectionOrder.iterator().next();
+            userCorrectionOrder.remove(oldest);
+            userCorrections.remove(oldest);
+            userCorrectionStore.remove(oldest);
+        }
+    }
+
+    /**
+     * Get the pokemon number of a stored user correction, kept in the low 32 bits of the value.
+     */
+    private static int getStoredPokemonNumber(long value) {
+        return (int) value;
+    }
+
+    /**
+     * Get the order in which a stored user correction was made, kept in the high 32 bits of the value.
+     */
+    private static long getStoredOrder(long value) {
+        return value >>> 32;
     }
 
     /**
      * Gets the best matching pokemon that can be found given the input, by doing the following:
-     * 1. check if the nickname perfectly matches a pokemon
-     * 2. check if candyname + evolution cost perfectly matches a pokemon
-     * 3. check correction for Eevee’s Evolution
-     * 4. get the pokemon with the closest name within the evolution line guessed from the candy
-     * 5. All else failed: make a wild guess based only on closest name match
+     * 1. check if the user confirmed a pokemon for this nickname and candy name before
+     * 2. check if the nickname perfectly matches a pokemon
+     * 3. check if candyname + evolution cost perfectly matches a pokemon
+     * 4. check correction for Eevee’s Evolution
+     * 5. get the pokemon with the closest name within the evolution line guessed from the candy
+     * 6. All else failed: make a wild guess based only on closest name match
      * <p>
      * The order is decided by having high reliability guessing modules run first, and if they cant find an answer,
      * fall back to less accurate methods.
@@ -38,17 +193,23 @@ public class PokemonNameCorrector {
      * @return a Pokedist with the best guess of the pokemon
      */
     public PokeDist getPossiblePokemon(String poketext, String candytext, Optional<Integer> candyUpgradeCost) {
-        ArrayList<Pokemon> bestGuessEvolutionLine = null;
+        List<Pokemon> bestGuessEvolutionLine = null;
         PokeDist guess;
 
-        //1. Check if nickname perfectly matches a pokemon (which means pokemon is probably not renamed)
+        //1. Check if the user already told which pokemon this scan is
+        Integer userCorrection = userCorrections.get(getUserCorrectionKey(poketext, candytext));
+        if (userCorrection != null) {
+            return new PokeDist(pokeInfoCalculator.get(userCorrection), 0);
+        }
+
+        //2. Check if nickname perfectly matches a pokemon (which means pokemon is probably not renamed)
         guess = new PokeDist(pokeInfoCalculator.get(poketext), 0);
 
-        //2. See if we can get a perfect match with candy name & upgrade cost
+        //3. See if we can get a perfect match with candy name & upgrade cost
         if (guess.pokemon == null) {
             bestGuessEvolutionLine = getBestGuessForEvolutionLine(candytext);
 
-            ArrayList<Pokemon> candyNameEvolutionCostGuess =
+            List<Pokemon> candyNameEvolutionCostGuess =
                     getCandyNameEvolutionCostGuess(bestGuessEvolutionLine, candyUpgradeCost);
             if (candyNameEvolutionCostGuess != null) {
                 if (candyNameEvolutionCostGuess.size() == 1) {
@@ -62,43 +223,88 @@ public class PokemonNameCorrector {
         }
 
 
-        //3.  check correction for Eevee’s Evolution
+        //4.  check correction for Eevee’s Evolution
         if (guess.pokemon == null) {
-            HashMap<String, String> eeveelutionCorrection = new HashMap<>();
-            eeveelutionCorrection.put("Rainer", pokeInfoCalculator.get(133).name); //Vaporeon
-            eeveelutionCorrection.put("Sparky", pokeInfoCalculator.get(134).name); //Jolteon
-            eeveelutionCorrection.put("Pyro", pokeInfoCalculator.get(135).name); //Flareon
-            if (eeveelutionCorrection.containsKey(poketext)) {
-                poketext = eeveelutionCorrection.get(poketext);
-                guess = new PokeDist(pokeInfoCalculator.get(poketext), 20);
+            Integer eeveelution = EEVEELUTION_NICKNAMES.get(poketext);
+            if (eeveelution != null) {
+                guess = new PokeDist(pokeInfoCalculator.get(eeveelution), 20);
             }
         }
 
-        //4.  get the pokemon with the closest name within the evolution line guessed from the candy (or candy and
+        //5.  get the pokemon with the closest name within the evolution line guessed from the candy (or candy and
         // cost calculation).
         if (guess.pokemon == null && bestGuessEvolutionLine != null) {
             guess = getNicknameGuess(poketext, bestGuessEvolutionLine);
         }
 
-        //5. All else failed: make a wild guess based only on closest name match
+        //6. All else failed: make a wild guess based only on closest name match, in any language
         if (guess.pokemon == null) {
-            guess = getNicknameGuess(poketext, pokeInfoCalculator.getPokedex());
+            guess = getFirst(pokeInfoCalculator.getClosestPokemons(poketext, 1));
         }
         return guess;
     }
 
 
+    /**
+     * Gets the pokemon the input could be, for when the best guess is wrong: the best guess of getPossiblePokemon
+     * first, then the evolution line guessed from the candy name and the pokemon with the closest names, each by
+     * distance to the nickname.
+     *
+     * @param poketext         the scanned pokemon nickname
+     * @param candytext        the scanned pokemon candy name
+     * @param candyUpgradeCost the scanned pokemon evolution candy cost
+     * @param count            the highest number of candidates to return
+     * @return up to count different pokemon, the most likely first, and at least the best guess
+     */
+    public List<PokeDist> getPossiblePokemons(String poketext, String candytext, Optional<Integer> candyUpgradeCost,
+                                             int count) {
+        List<PokeDist> candidates = new ArrayList<>(count);
+        candidates.add(getPossiblePokemon(poketext, candytext, candyUpgradeCost));
+
+        List<PokeDist> evolutionLineCandidates = new ArrayList<>();
+        for (Pokemon pokemon : getBestGuessForEvolutionLine(candytext)) {
+            evolutionLineCandidates.add(new PokeDist(pokemon, pokemon.getDistanceCaseInsensitive(poketext)));
+        }
+        Collections.sort(evolutionLineCandidates, new Comparator<PokeDist>() {
+            @Override public int compare(PokeDist lhs, PokeDist rhs) {
+                return Integer.compare(lhs.dist, rhs.dist);
+            }
+        });
+        for (PokeDist candidate : evolutionLineCandidates) {
+            addCandidate(candidates, candidate, count);
+        }
+
+        for (PokeDist candidate : pokeInfoCalculator.getClosestPokemons(poketext, count)) {
+            addCandidate(candidates, candidate, count);
+        }
+        return candidates;
+    }
+
+    private static void addCandidate(List<PokeDist> candidates, PokeDist candidate, int count) {
+        if (candidates.size() >= count || candidate.pokemon == null) {
+            return;
+        }
+        for (PokeDist other : candidates) {
+            if (other.pokemon == candidate.pokemon) {
+                return;
+            }
+        }
+        candidates.add(candidate);
+    }
+
     /**
      * A method which returns if there's a pokemon which matches the candy name & evolution cost. This method will
      * work regardless of whether the pokemon has been renamed or not.
-     * Will find the closest match to candy name as assumption
+     * Will find the closest match to candy name as assumption. If no pokemon of the line has exactly the scanned
+     * cost, the cost is assumed to have been partially covered and completed wrong, and the pokemon whose cost starts
+     * like it are returned.
      *
      * @param bestGuessEvolutionLine The evolution line guessed from the candy name
      * @param evolutionCost          the scanned cost to evolve the pokemon
      * @return a pokemon that perfectly matches the input, or null if no match was found
      */
-    private ArrayList<Pokemon> getCandyNameEvolutionCostGuess(ArrayList<Pokemon> bestGuessEvolutionLine,
-                                                              Optional<Integer> evolutionCost) {
+    private List<Pokemon> getCandyNameEvolutionCostGuess(List<Pokemon> bestGuessEvolutionLine,
+                                                         Optional<Integer> evolutionCost) {
         if (evolutionCost.isPresent()) {
             ArrayList<Pokemon> PokemonValidOptions = new ArrayList<Pokemon>();
             for (Pokemon pokemon : bestGuessEvolutionLine) {
@@ -106,6 +312,14 @@ public class PokemonNameCorrector {
                     PokemonValidOptions.add(pokemon);
                 }
             }
+            if (PokemonValidOptions.isEmpty()) {
+                for (Pokemon pokemon : bestGuessEvolutionLine) {
+                    if (EvolutionCostClassifier.couldBeCoveredReadingOf(evolutionCost.get(),
+                            pokemon.candyEvolutionCost)) {
+                        PokemonValidOptions.add(pokemon);
+                    }
+                }
+            }
             return PokemonValidOptions;
         }
 
@@ -125,8 +339,10 @@ public class PokemonNameCorrector {
         //if there's no perfect match, get the pokemon that best matches the nickname within the best guess evo-line
         Pokemon bestMatchPokemon = null;
         int lowestDist = Integer.MAX_VALUE;
+        char[] lowerCasePoketext = poketext.toLowerCase().toCharArray();
         for (Pokemon trypoke : pokemons) {
-            int dist = trypoke.getDistanceCaseInsensitive(poketext);
+            //Only a distance lower than the best one so far matters, so the search can stop above it.
+            int dist = trypoke.getDistanceCaseInsensitive(lowerCasePoketext, lowestDist - 1);
             if (dist < lowestDist) {
                 bestMatchPokemon = trypoke;
                 lowestDist = dist;
@@ -142,12 +358,16 @@ public class PokemonNameCorrector {
      * @param input the base evolution (ex weedle) to find a match for
      * @return an evolution line which the string best matches the base evolution pokemon name
      */
-    private ArrayList<Pokemon> getBestGuessForEvolutionLine(String input) {
-        //candy name will only ever match the base evolution, so search in getBasePokemons().
-        PokeDist bestMatch = getNicknameGuess(input, pokeInfoCalculator.getBasePokemons());
+    private List<Pokemon> getBestGuessForEvolutionLine(String input) {
+        //candy name will only ever match the base evolution, so search in the base pokemons.
+        PokeDist bestMatch = getFirst(pokeInfoCalculator.getClosestBasePokemons(input, 1));
         return pokeInfoCalculator.getEvolutionLine(bestMatch.pokemon);
     }
 
+    private static PokeDist getFirst(List<PokeDist> closest) {
+        return closest.isEmpty() ? new PokeDist(null, Integer.MAX_VALUE) : closest.get(0);
+    }
+
     /**
      * A class representing a result of pokemon search. A higher distance means the result was more uncertain. This
      * is used to colorize the background for the guessed pokemon in the overlay input screen.
@@ -165,4 +385,19 @@ public class PokemonNameCorrector {
          */
         public final int dist;
     }
+
+    /**
+     * Where the user corrections are kept from one session to the next, such as a preferences file of their own.
+     */
+    public interface UserCorrectionStore {
+        /**
+         * Stores a user correction, or replaces it.
+         *
+         * @param key   the user correction key
+         * @param value the pokemon number and the order of the correction, to be given back to the constructor
+         */
+        void put(String key, long value);
+
+        void remove(String key);
+    }
 }
@@ -0,0 +1,146 @@
+package com.kamron.pogoiv.logic;
+
+import com.kamron.pogoiv.logic.PokemonNameCorrector.PokeDist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An index of pokemon names to find the closest ones to a scanned text, without comparing it to every name.
+ * The names are kept in a BK-tree: the children of a name are filed by their edit distance to it, and by the
+ * triangle inequality only the children whose distance is close to the distance between the text and the name can
+ * hold a close enough match. A pokemon can be indexed under many names, such as its name in every language.
+ */
+public class PokemonNameIndex {
+    /**
+     * The distance bound while fewer matches than asked for were found; low enough that adding a name length to it
+     * can't overflow.
+     */
+    private static final int UNBOUNDED = Integer.MAX_VALUE / 2;
+
+    private Node root;
+    private int size = 0;
+
+    /**
+     * Indexes a pokemon under a name. Names are compared case insensitively, and a name already indexed for the
+     * pokemon is skipped.
+     *
+     * @param name    The name of the pokemon, in any language.
+     * @param pokemon The pokemon.
+     */
+    public void add(String name, Pokemon pokemon) {
+        String lowerCaseName = name.toLowerCase();
+        if (root == null) {
+            root = new Node(lowerCaseName, pokemon);
+            size++;
+            return;
+        }
+        char[] lowerCaseChars = lowerCaseName.toCharArray();
+        Node node = root;
+        while (true) {
+            int dist = node.pattern.distanceTo(lowerCaseChars, Integer.MAX_VALUE);
+            if (dist == 0) {
+                if (!node.pokemons.contains(pokemon)) {
+                    node.pokemons.add(pokemon);
+                }
+                return;
+            }
+            if (dist >= node.children.length) {
+                node.children = Arrays.copyOf(node.children, dist + 1);
+            }
+            if (node.children[dist] == null) {
+                node.children[dist] = new Node(lowerCaseName, pokemon);
+                size++;
+                return;
+            }
+            node = node.children[dist];
+        }
+    }
+
+    /**
+     * Get the number of distinct names in the index.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the pokemon whose names are closest to a text. Each pokemon is listed once, with the distance of its
+     * closest name.
+     *
+     * @param text  The text to compare the names with, case insensitively.
+     * @param count The highest number of pokemon to return.
+     * @return Up to count pokemon, the closest first. Pokemon at the same distance are ordered by number.
+     */
+    public List<PokeDist> getClosest(String text, int count) {
+        List<PokeDist> closest = new ArrayList<>(count + 1);
+        if (root != null && count > 0) {
+            search(root, text.toLowerCase().toCharArray(), count, closest);
+        }
+        return closest;
+    }
+
+    private void search(Node node, char[] lowerCaseText, int count, List<PokeDist> closest) {
+        int bound = closest.size() < count ? UNBOUNDED : closest.get(count - 1).dist;
+        //No child can be close enough if the text is further than the bound from all of them.
+        int dist = node.pattern.distanceTo(lowerCaseText, bound + Math.max(0, node.children.length - 1));
+        if (dist <= bound) {
+            for (Pokemon pokemon : node.pokemons) {
+                offer(new PokeDist(pokemon, dist), count, closest);
+            }
+            bound = closest.size() < count ? UNBOUNDED : closest.get(count - 1).dist;
+        }
+        for (int childDist = Math.max(1, dist - bound); childDist < node.children.length; childDist++) {
+            if (childDist > dist + bound) {
+                break;
+            }
+            if (node.children[childDist] != null) {
+                search(node.children[childDist], lowerCaseText, count, closest);
+                bound = closest.size() < count ? UNBOUNDED : closest.get(count - 1).dist;
+            }
+        }
+    }
+
+    /**
+     * Inserts a match in the sorted list of the closest ones, if it's close enough and its pokemon isn't listed
+     * with a lower distance already.
+     */
+    private static void offer(PokeDist match, int count, List<PokeDist> closest) {
+        for (int i = 0; i < closest.size(); i++) {
+            if (closest.get(i).pokemon == match.pokemon) {
+                if (!isCloser(match, closest.get(i))) {
+                    return;
+                }
+                closest.remove(i);
+                break;
+            }
+        }
+        int position = closest.size();
+        while (position > 0 && isCloser(match, closest.get(position - 1))) {
+            position--;
+        }
+        closest.add(position, match);
+        if (closest.size() > count) {
+            closest.remove(count);
+        }
+    }
+
+    private static boolean isCloser(PokeDist lhs, PokeDist rhs) {
+        return lhs.dist < rhs.dist || (lhs.dist == rhs.dist && lhs.pokemon.number < rhs.pokemon.number);
+    }
+
+    private static class Node {
+        private final EditDistancePattern pattern;
+        private final List<Pokemon> pokemons = new ArrayList<>(1);
+        /**
+         * The children, indexed by their distance to this node.
+         */
+        private Node[] children = new Node[0];
+
+        private Node(String lowerCaseName, Pokemon pokemon) {
+            this.pattern = new EditDistancePattern(lowerCaseName);
+            this.pokemons.add(pokemon);
+        }
+    }
+}
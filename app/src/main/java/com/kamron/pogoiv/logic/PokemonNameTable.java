@@ -0,0 +1,104 @@
+package com.kamron.pogoiv.logic;
+
+import android.support.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The pokemon names of every bundled language, generated at build time by the generatePokemonNameTable task.
+ * The first line of the table lists the languages, then each line holds the names of a pokemon in these languages,
+ * tab separated.
+ */
+public class PokemonNameTable {
+    /**
+     * The name of the asset holding the table.
+     */
+    public static final String ASSET_NAME = "pokemon_names.txt";
+
+    private static final String SEPARATOR = "\t";
+
+    private final List<String> languages;
+    /**
+     * The names of all pokemon, by language then by pokemon number.
+     */
+    private final String[][] names;
+
+    private PokemonNameTable(List<String> languages, String[][] names) {
+        this.languages = languages;
+        this.names = names;
+    }
+
+    /**
+     * Reads a table.
+     *
+     * @param in The table, in UTF-8. It's not closed.
+     * @return The table.
+     * @throws IOException if the table can't be read, or a line doesn't have a name in each language.
+     */
+    public static PokemonNameTable read(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, Charset.forName("UTF-8")));
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IOException("Empty pokemon name table");
+        }
+        List<String> languages = Arrays.asList(header.split(SEPARATOR));
+
+        List<String[]> rows = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] row = line.split(SEPARATOR, -1);
+            if (row.length != languages.size()) {
+                throw new IOException("Pokemon " + rows.size() + " has " + row.length + " names instead of "
+                        + languages.size());
+            }
+            rows.add(row);
+        }
+
+        String[][] names = new String[languages.size()][rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            for (int j = 0; j < languages.size(); j++) {
+                names[j][i] = rows.get(i)[j];
+            }
+        }
+        return new PokemonNameTable(Collections.unmodifiableList(languages), names);
+    }
+
+    /**
+     * Get the languages of the table, such as "en" or "zh-TW".
+     */
+    public List<String> getLanguages() {
+        return languages;
+    }
+
+    /**
+     * Get the names of all pokemon in a language.
+     *
+     * @param language The language, as listed by getLanguages.
+     * @return The names by pokemon number, or null if the table doesn't have the language.
+     */
+    public @Nullable String[] getNames(String language) {
+        int i = languages.indexOf(language);
+        return i >= 0 ? names[i].clone() : null;
+    }
+
+    /**
+     * Get the names of all pokemon in every language of the table.
+     *
+     * @return The names by language, in the order of getLanguages, then by pokemon number.
+     */
+    public String[][] getAllNames() {
+        String[][] copy = new String[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            copy[i] = names[i].clone();
+        }
+        return copy;
+    }
+}
@@ -29,8 +29,13 @@ public class PokemonShareHandler {
             jsonPokemon.put("StamMin", ivScan.lowStamina);
             jsonPokemon.put("StamMax", ivScan.highStamina);
             jsonPokemon.put("OverallPower", ivScan.getAveragePercent());
-            jsonPokemon.put("Hp", ivScan.scannedHP);
-            jsonPokemon.put("Cp", ivScan.scannedCP);
+            //A result calculated from partial inputs doesn't know the exact value of the missing ones, left at 0.
+            if (ivScan.scannedHP > 0) {
+                jsonPokemon.put("Hp", ivScan.scannedHP);
+            }
+            if (ivScan.usedInputs.usesCP) {
+                jsonPokemon.put("Cp", ivScan.scannedCP);
+            }
             jsonPokemon.put("uniquePokemon", uniquePokemonID);
             jsonPokemon.put("estimatedPokemonLevel", ivScan.estimatedPokemonLevel);
             PokeInfoCalculator calc = PokeInfoCalculator.getInstance();
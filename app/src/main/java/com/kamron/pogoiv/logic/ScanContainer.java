@@ -1,7 +1,5 @@
 package com.kamron.pogoiv.logic;
 
-import java.util.ArrayList;
-
 /**
  * Created by Johan on 2016-08-19.
  * <p/>
@@ -36,25 +34,13 @@ public class ScanContainer {
      *
      * @param poke1 the first pokemon scan
      * @param poke2 the second pokemon scan
-     * @return ArrayList of ivcombination that are present in both iv scans.
+     * @return the set of ivcombination that are present in both iv scans.
      */
-    private static ArrayList<IVCombination> findIVIntersection(IVScanResult poke1, IVScanResult poke2) {
-        ArrayList<IVCombination> intersection = new ArrayList<>();
-
-
+    private static IVSet findIVIntersection(IVScanResult poke1, IVScanResult poke2) {
         if (poke1 != null && poke2 != null) {
-            ArrayList<IVCombination> p1IVs = poke1.iVCombinations;
-            ArrayList<IVCombination> p2IVs = poke2.iVCombinations;
-            for (IVCombination p1IV : p1IVs) {
-                for (IVCombination p2IV : p2IVs) {
-                    if (p1IV.equals(p2IV)) {
-                        intersection.add(p1IV);
-                    }
-                }
-            }
+            return IVSet.intersection(poke1.iVCombinations, poke2.iVCombinations);
         }
-
-        return intersection;
+        return new IVSet();
     }
 
     /**
@@ -86,9 +72,9 @@ public class ScanContainer {
      * Compares the latest two pokemon scan results, and returns a list of which ivs the scans have in commomn
      * Useful when you power up a pokemon, and wanna see which combinations you can trash
      *
-     * @return ArrayList of ivcombination that are present in both iv scans.
+     * @return the set of ivcombination that are present in both iv scans.
      */
-    public ArrayList<IVCombination> getLatestIVIntersection() {
+    public IVSet getLatestIVIntersection() {
         return findIVIntersection(currScan, prevScan);
 
     }
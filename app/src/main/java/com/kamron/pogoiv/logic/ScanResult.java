@@ -1,9 +1,13 @@
 package com.kamron.pogoiv.logic;
 
 import com.google.common.base.Optional;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 /**
  * A ScanResult represents the result of an OCR scan.
+ * The candy amount and the unique ID are only needed once the user picked the pokemon, so they may still be
+ * recognized in the background when the scan result is ready.
  * Created by pgiarrusso on 3/9/2016.
  */
 //TODO: we might want to make this Parcelable instead of sending the fields one by one?
@@ -13,22 +17,27 @@ public class ScanResult {
     private final String pokemonName;
     private final String candyName;
     private final Optional<Integer> pokemonHP;
+    private final Optional<Integer> pokemonMinHP;
     private final Optional<Integer> pokemonCP;
-    private final Optional<Integer> pokemonCandyAmount;
+    private final ListenableFuture<Optional<Integer>> pokemonCandyAmount;
     private final Optional<Integer> upgradeCandyCost;
-    private final String uniqueID;
+    private final ListenableFuture<String> uniqueID;
+    private final long screenFingerprint;
 
     public ScanResult(double estimatedPokemonLevel, String pokemonName, String candyName, Optional<Integer> pokemonHP,
-                      Optional<Integer> pokemonCP, Optional<Integer> pokemonCandyAmount,
-                      Optional<Integer> upgradeCandyCost, String uniqueID) {
+                      Optional<Integer> pokemonMinHP, Optional<Integer> pokemonCP,
+                      ListenableFuture<Optional<Integer>> pokemonCandyAmount, Optional<Integer> upgradeCandyCost,
+                      ListenableFuture<String> uniqueID, long screenFingerprint) {
         this.estimatedPokemonLevel = estimatedPokemonLevel;
         this.pokemonName = pokemonName;
         this.candyName = candyName;
         this.pokemonHP = pokemonHP;
+        this.pokemonMinHP = pokemonMinHP;
         this.pokemonCP = pokemonCP;
         this.pokemonCandyAmount = pokemonCandyAmount;
         this.upgradeCandyCost = upgradeCandyCost;
         this.uniqueID = uniqueID;
+        this.screenFingerprint = screenFingerprint;
     }
 
     public double getEstimatedPokemonLevel() {
@@ -47,18 +56,63 @@ public class ScanResult {
         return pokemonHP;
     }
 
+    /**
+     * Get a lower bound of the hp, which is the hp if it could be read, or else the current hp of the pokemon if only
+     * it could be read.
+     */
+    public Optional<Integer> getPokemonMinHP() {
+        return pokemonMinHP;
+    }
+
     public Optional<Integer> getPokemonCP() {
         return pokemonCP;
     }
 
+    /**
+     * Get the candy amount, without waiting for it to be recognized.
+     *
+     * @return The candy amount, or absent if it couldn't be recognized or isn't recognized yet.
+     */
     public Optional<Integer> getPokemonCandyAmount() {
+        return getOrDefault(pokemonCandyAmount, Optional.<Integer>absent());
+    }
+
+    public ListenableFuture<Optional<Integer>> getPokemonCandyAmountFuture() {
         return pokemonCandyAmount;
     }
 
+    /**
+     * Get the unique ID, without waiting for it to be recognized.
+     *
+     * @return The unique ID, or an empty string if it couldn't be recognized or isn't recognized yet.
+     */
     public String getPokemonUniqueID() {
+        return getOrDefault(uniqueID, "");
+    }
+
+    public ListenableFuture<String> getPokemonUniqueIDFuture() {
         return uniqueID;
     }
 
+    /**
+     * Get the fingerprint of the scanned screen, equal for scans of the same screen.
+     */
+    public long getScreenFingerprint() {
+        return screenFingerprint;
+    }
+
+    private static <V> V getOrDefault(ListenableFuture<V> field, V defaultValue) {
+        if (!field.isDone()) {
+            return defaultValue;
+        }
+        try {
+            return Futures.getUnchecked(field);
+        } catch (RuntimeException e) {
+            //The field failed to be recognized, or its recognition was cancelled.
+            return defaultValue;
+        }
+    }
+
     /**
      * Test whether this ScanResult represents a failed scan.
      *
@@ -0,0 +1,123 @@
+package com.kamron.pogoiv.logic;
+
+/**
+ * The CP and HP of a pokemon species for every IV combination and level, computed once instead of every time the
+ * IVs are checked or the level is changed.
+ * The square roots and CpM products are cached with the exact same floating point operations, in the same order, as
+ * the formulas they replace, so that every result is bit-identical.
+ */
+public class SpeciesStatTable {
+    /**
+     * How many values each IV can take.
+     */
+    public static final int IV_COUNT = 16;
+
+    private final int baseStamina;
+    /**
+     * (baseAttack + attackIV) * sqrt(baseDefense + defenseIV), indexed by defenseIV << 4 | attackIV.
+     */
+    private final double[] attackDefense = new double[IV_COUNT * IV_COUNT];
+    /**
+     * sqrt(baseStamina + staminaIV).
+     */
+    private final double[] sqrtStamina = new double[IV_COUNT];
+    /**
+     * CpM^2 of every level index.
+     */
+    private final double[] cpmPow2;
+    /**
+     * sqrt(baseStamina + staminaIV) * CpM^2 * 0.1, indexed by levelIdx * IV_COUNT + staminaIV.
+     */
+    private final double[] staminaCpScalar;
+    /**
+     * The HP, indexed by levelIdx * IV_COUNT + staminaIV.
+     */
+    private final int[] hp;
+    /**
+     * The CP of every IV combination at each level index, computed the first time the level is checked.
+     */
+    private final int[][] cpTables;
+
+    public SpeciesStatTable(Pokemon pokemon) {
+        baseStamina = pokemon.baseStamina;
+        for (int defenseIV = 0; defenseIV < IV_COUNT; defenseIV++) {
+            double sqrtDefense = Math.sqrt(pokemon.baseDefense + defenseIV);
+            for (int attackIV = 0; attackIV < IV_COUNT; attackIV++) {
+                attackDefense[defenseIV << 4 | attackIV] = (pokemon.baseAttack + attackIV) * sqrtDefense;
+            }
+        }
+        for (int staminaIV = 0; staminaIV < IV_COUNT; staminaIV++) {
+            sqrtStamina[staminaIV] = Math.sqrt(baseStamina + staminaIV);
+        }
+
+        int levelIdxCount = Data.getLevelIdxCount();
+        cpmPow2 = new double[levelIdxCount];
+        staminaCpScalar = new double[levelIdxCount * IV_COUNT];
+        hp = new int[levelIdxCount * IV_COUNT];
+        cpTables = new int[levelIdxCount][];
+        for (int levelIdx = 0; levelIdx < levelIdxCount; levelIdx++) {
+            double lvlScalar = Data.getLevelCpM(Data.levelIdxToLevel(levelIdx));
+            cpmPow2[levelIdx] = Math.pow(lvlScalar, 2);
+            double lvlScalarPow2 = cpmPow2[levelIdx] * 0.1;
+            for (int staminaIV = 0; staminaIV < IV_COUNT; staminaIV++) {
+                int i = levelIdx * IV_COUNT + staminaIV;
+                staminaCpScalar[i] = sqrtStamina[staminaIV] * lvlScalarPow2;
+                hp[i] = (int) Math.max(Math.floor((baseStamina + staminaIV) * lvlScalar), 10);
+            }
+        }
+    }
+
+    /**
+     * Get the index of an IV combination in the CP tables.
+     */
+    public static int ivIndex(int attackIV, int defenseIV, int staminaIV) {
+        return staminaIV << 8 | defenseIV << 4 | attackIV;
+    }
+
+    /**
+     * Get the HP of the species, which is at least 10.
+     */
+    public int getHp(int levelIdx, int staminaIV) {
+        return hp[levelIdx * IV_COUNT + staminaIV];
+    }
+
+    /**
+     * Get the CP of the species, which is at least 10.
+     */
+    public int getCp(int levelIdx, int attackIV, int defenseIV, int staminaIV) {
+        return Math.max(10, (int) Math.floor(attackDefense[defenseIV << 4 | attackIV]
+                * staminaCpScalar[levelIdx * IV_COUNT + staminaIV]));
+    }
+
+    /**
+     * Get the CP of every IV combination at a level.
+     *
+     * @param levelIdx The level index.
+     * @return The CPs, indexed by ivIndex. The array is shared and must not be modified.
+     */
+    public synchronized int[] getCpTable(int levelIdx) {
+        int[] cpTable = cpTables[levelIdx];
+        if (cpTable == null) {
+            cpTable = new int[IV_COUNT * IV_COUNT * IV_COUNT];
+            for (int staminaIV = 0; staminaIV < IV_COUNT; staminaIV++) {
+                for (int defenseIV = 0; defenseIV < IV_COUNT; defenseIV++) {
+                    for (int attackIV = 0; attackIV < IV_COUNT; attackIV++) {
+                        cpTable[ivIndex(attackIV, defenseIV, staminaIV)] =
+                                getCp(levelIdx, attackIV, defenseIV, staminaIV);
+                    }
+                }
+            }
+            cpTables[levelIdx] = cpTable;
+        }
+        return cpTable;
+    }
+
+    /**
+     * Get the CP as shown in the CP ranges, which unlike getCp can be under 10, and multiplies the factors in
+     * another order.
+     */
+    public int getRangeCp(int levelIdx, int attackIV, int defenseIV, int staminaIV) {
+        return (int) Math.floor(attackDefense[defenseIV << 4 | attackIV] * sqrtStamina[staminaIV]
+                * cpmPow2[levelIdx] * 0.1);
+    }
+}
@@ -0,0 +1,191 @@
+package com.kamron.pogoiv.ocr;
+
+import java.util.Arrays;
+
+/**
+ * An 8-bit grayscale image holding the preprocessed fields of a scan, stacked on top of each other as strips.
+ * Tesseract is given the whole atlas once, and each field is then recognized by pointing it to its strip, instead of
+ * converting a new image for every field.
+ * The buffer is reused from one scan to the next: call reset before laying out a new scan.
+ */
+public class BinaryAtlas {
+    /**
+     * Value of the pixels which are part of the text.
+     */
+    public static final int INK = 0;
+    /**
+     * Value of the background pixels.
+     */
+    public static final int PAPER = 255;
+
+    private byte[] bytes = new byte[0];
+    private int width;
+    private int height;
+    private int generation = 0;
+
+    /**
+     * Removes all strips, and sets the width of the atlas for the next scan.
+     *
+     * @param width the width of the atlas, which must be at least the width of the widest strip.
+     */
+    public void reset(int width) {
+        this.width = width;
+        this.height = 0;
+        this.generation++;
+    }
+
+    /**
+     * Get how many times the atlas was reset, so that users of its bytes know when to read them again.
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Reserves a strip at the bottom of the atlas.
+     *
+     * @param source the region of the screen the strip will be filled from.
+     * @return The new strip.
+     */
+    public Strip addStrip(PixelRegion source) {
+        if (source.width > width) {
+            throw new IllegalArgumentException("Strip is wider than the atlas: " + source.width + " > " + width);
+        }
+        Strip strip = new Strip(this, source, height);
+        height += source.height;
+        if (bytes.length < width * height) {
+            bytes = Arrays.copyOf(bytes, width * height);
+        }
+        return strip;
+    }
+
+    /**
+     * Fills a strip with its source region, turning pixels close enough to a color into ink and all others into
+     * paper.
+     *
+     * @param strip    The strip to fill.
+     * @param keepCr   The red of the text color
+     * @param keepCg   The green of the text color
+     * @param keepCb   The blue of the text color
+     * @param distance How far from the text color a pixel can be to still be considered as text.
+     * @param simpleBG Whether the region has a simple background, the color of its top left pixel.
+     */
+    public void binarize(Strip strip, int keepCr, int keepCg, int keepCb, int distance, boolean simpleBG) {
+        PixelRegion src = strip.source;
+        int distanceSq = distance * distance;
+        int bgColor = src.getPixel(0, 0);
+
+        for (int y = 0; y < src.height; y++) {
+            int srcRow = src.offset + y * src.stride;
+            int dstRow = (strip.top + y) * width;
+            for (int x = 0; x < src.width; x++) {
+                int pixel = src.pixels[srcRow + x];
+                /* Avoid unnecessary math for obviously background color. This removes most of the math
+                 * for candy, HP and name regions. */
+                if (simpleBG && pixel == bgColor) {
+                    bytes[dstRow + x] = (byte) PAPER;
+                    continue;
+                }
+                int rDiff = keepCr - ((pixel >> 16) & 0xff);
+                int gDiff = keepCg - ((pixel >> 8) & 0xff);
+                int bDiff = keepCb - (pixel & 0xff);
+                int dSq = rDiff * rDiff + gDiff * gDiff + bDiff * bDiff;
+                bytes[dstRow + x] = (byte) (dSq > distanceSq ? PAPER : INK);
+            }
+        }
+    }
+
+    /**
+     * Fills a strip with the brightness of its source region, without any cleaning.
+     *
+     * @param strip The strip to fill.
+     */
+    public void copyLuminance(Strip strip) {
+        PixelRegion src = strip.source;
+        for (int y = 0; y < src.height; y++) {
+            int srcRow = src.offset + y * src.stride;
+            int dstRow = (strip.top + y) * width;
+            for (int x = 0; x < src.width; x++) {
+                int pixel = src.pixels[srcRow + x];
+                int luminance = (77 * ((pixel >> 16) & 0xff) + 150 * ((pixel >> 8) & 0xff) + 29 * (pixel & 0xff)) >> 8;
+                bytes[dstRow + x] = (byte) luminance;
+            }
+        }
+    }
+
+    /**
+     * Heuristic to determine if a binarized strip looks empty, by checking if its middle row has no ink.
+     *
+     * @param strip A strip filled by binarize.
+     * @return true if the strip is likely only paper.
+     */
+    public boolean isBlank(Strip strip) {
+        int rowStart = (strip.top + strip.getHeight() / 2) * width;
+        for (int i = rowStart; i < rowStart + strip.getWidth(); i++) {
+            if ((bytes[i] & 0xff) != PAPER) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get a pixel of a strip.
+     *
+     * @param strip the strip to read.
+     * @param x     horizontal coordinate, relative to the left side of the strip
+     * @param y     vertical coordinate, relative to the top side of the strip
+     * @return the gray level of the pixel, between 0 and 255.
+     */
+    public int getPixel(Strip strip, int x, int y) {
+        return bytes[(strip.top + y) * width + x] & 0xff;
+    }
+
+    /**
+     * Get the buffer holding the atlas, one byte per pixel, one row after the other. The buffer can be longer than
+     * width * height.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * The place in the atlas of one field. Strips are always on the left side of the atlas.
+     */
+    public static class Strip {
+        /**
+         * The atlas containing this strip.
+         */
+        public final BinaryAtlas atlas;
+        /**
+         * The region of the screen this strip is a preprocessed copy of.
+         */
+        public final PixelRegion source;
+        /**
+         * The row of the atlas where the strip starts.
+         */
+        public final int top;
+
+        private Strip(BinaryAtlas atlas, PixelRegion source, int top) {
+            this.atlas = atlas;
+            this.source = source;
+            this.top = top;
+        }
+
+        public int getWidth() {
+            return source.width;
+        }
+
+        public int getHeight() {
+            return source.height;
+        }
+    }
+}
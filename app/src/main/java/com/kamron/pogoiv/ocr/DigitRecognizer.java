@@ -0,0 +1,284 @@
+package com.kamron.pogoiv.ocr;
+
+import com.google.common.base.Optional;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Recognizes the glyphs of the numeric fields (CP, HP, candy amount, evolution cost) by comparing them to templates of
+ * the game font, which is a lot faster than going through tesseract.
+ * The app doesn't ship the font, so the templates are learned from the text tesseract recognized with a high
+ * confidence. Until a character has been learned, recognize doesn't give any result and tesseract has to be used.
+ * Besides digits, this also learns the few other glyphs found in those fields, like the "/" and "HP" of the HP field.
+ * Since tesseract can be confidently wrong, a glyph only becomes a template once a second read agrees with the first
+ * one, and is forgotten if a read disagrees. The templates are saved with writeTo, so that the next sessions don't
+ * have to learn them again.
+ */
+public class DigitRecognizer {
+
+    /**
+     * The maximum number of grid cells a glyph can differ from a template and still be recognized as it, a fifth of
+     * the grid.
+     */
+    static final int MAX_DISTANCE = 24;
+    /**
+     * How much closer a glyph must be to its best template than to any template of another character.
+     */
+    static final int MIN_MARGIN = 4;
+    /**
+     * Glyphs this close to a template of the same character are not worth adding as a new template.
+     */
+    private static final int DUPLICATE_DISTANCE = 3;
+    /**
+     * Glyphs this close to an unconfirmed template of the same character are taken as a second read of it. Glyphs
+     * within DUPLICATE_DISTANCE of an unconfirmed template of another character are the same glyph read differently.
+     */
+    private static final int CONFIRMATION_DISTANCE = 8;
+    private static final int MAX_TEMPLATES_PER_CHAR = 8;
+    private static final int MAX_TEMPLATES = 256;
+    private static final int MAX_UNCONFIRMED_TEMPLATES = 64;
+
+    private static final int MAGIC = 0x474f4944; //"GOID"
+    private static final int VERSION = 1;
+
+    /**
+     * The learned templates, guarded by this.
+     */
+    private final List<Template> templates = new ArrayList<>();
+    /**
+     * The glyphs read only once, which become templates when a second read agrees, oldest first. Guarded by this.
+     */
+    private final List<Template> unconfirmedTemplates = new ArrayList<>();
+
+    /**
+     * Recognizes a line of glyphs.
+     *
+     * @param glyphs The glyphs of the line, from left to right.
+     * @return The text of the line without any whitespace, or absent if there are no glyphs or any of them can't be
+     *     recognized with confidence.
+     */
+    public synchronized Optional<String> recognize(List<Glyph> glyphs) {
+        if (glyphs.isEmpty()) {
+            return Optional.absent();
+        }
+        StringBuilder text = new StringBuilder(glyphs.size());
+        for (Glyph glyph : glyphs) {
+            Match match = match(glyph);
+            if (match == null || !match.isConfident()) {
+                return Optional.absent();
+            }
+            text.append(match.character);
+        }
+        return Optional.of(text.toString());
+    }
+
+    /**
+     * Learns templates from a line of glyphs and the text another recognizer found for it. Nothing is learned if the
+     * text, without whitespace, doesn't have exactly one character per glyph, since the glyphs can't be matched to
+     * the characters then. A glyph is only recognized once it was learned twice as the same character.
+     *
+     * @param glyphs The glyphs of the line, from left to right.
+     * @param text   The text of the line.
+     * @return true if the glyphs could be matched to the text.
+     */
+    public synchronized boolean learn(List<Glyph> glyphs, String text) {
+        String characters = text.replaceAll("\\s", "");
+        if (characters.length() != glyphs.size()) {
+            return false;
+        }
+        for (int i = 0; i < glyphs.size(); i++) {
+            learn(glyphs.get(i), characters.charAt(i));
+        }
+        return true;
+    }
+
+    private void learn(Glyph glyph, char character) {
+        int sameCharTemplates = 0;
+        for (Template template : templates) {
+            if (template.character == character) {
+                sameCharTemplates++;
+                if (template.glyph.distanceTo(glyph) <= DUPLICATE_DISTANCE) {
+                    return;
+                }
+            }
+        }
+        if (sameCharTemplates >= MAX_TEMPLATES_PER_CHAR || templates.size() >= MAX_TEMPLATES) {
+            return;
+        }
+
+        Template confirmed = null;
+        int confirmedDistance = Integer.MAX_VALUE;
+        boolean disagreed = false;
+        for (Iterator<Template> it = unconfirmedTemplates.iterator(); it.hasNext(); ) {
+            Template unconfirmed = it.next();
+            int distance = unconfirmed.glyph.distanceTo(glyph);
+            if (unconfirmed.character == character) {
+                if (distance <= CONFIRMATION_DISTANCE && distance < confirmedDistance) {
+                    confirmed = unconfirmed;
+                    confirmedDistance = distance;
+                }
+            } else if (distance <= DUPLICATE_DISTANCE) {
+                //The same glyph was read as another character. One of the reads was wrong, but there's no telling
+                //which, so neither is kept.
+                it.remove();
+                disagreed = true;
+            }
+        }
+        if (disagreed) {
+            if (confirmed != null) {
+                unconfirmedTemplates.remove(confirmed);
+            }
+        } else if (confirmed != null) {
+            //Glyphs which look like another character are still learned, so that recognize can see they are
+            //ambiguous and leave them to tesseract instead of confidently picking the wrong character.
+            unconfirmedTemplates.remove(confirmed);
+            templates.add(confirmed);
+        } else {
+            if (unconfirmedTemplates.size() >= MAX_UNCONFIRMED_TEMPLATES) {
+                unconfirmedTemplates.remove(0);
+            }
+            unconfirmedTemplates.add(new Template(glyph, character));
+        }
+    }
+
+    /**
+     * Saves the learned templates, without the unconfirmed ones.
+     *
+     * @param out The stream to write the templates to. It's not closed.
+     * @throws IOException if the templates can't be written.
+     */
+    public synchronized void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(templates.size());
+        for (Template template : templates) {
+            data.writeChar(template.character);
+            data.writeLong(template.glyph.topBits);
+            data.writeLong(template.glyph.bottomBits);
+            data.writeInt(template.glyph.width);
+            data.writeInt(template.glyph.height);
+        }
+        data.flush();
+    }
+
+    /**
+     * Adds templates saved by writeTo to the learned ones.
+     *
+     * @param in The stream to read the templates from. It's not closed.
+     * @throws IOException if the templates can't be read, or weren't saved by this version. Nothing is added then.
+     */
+    public synchronized void readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("Not digit templates of this version");
+        }
+        int count = data.readInt();
+        if (count < 0 || count > MAX_TEMPLATES) {
+            throw new IOException("Invalid digit template count " + count);
+        }
+        List<Template> read = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            char character = data.readChar();
+            long topBits = data.readLong();
+            long bottomBits = data.readLong();
+            int width = data.readInt();
+            int height = data.readInt();
+            read.add(new Template(new Glyph(topBits, bottomBits, 0, width, height), character));
+        }
+        templates.addAll(read.subList(0, Math.min(read.size(), MAX_TEMPLATES - templates.size())));
+    }
+
+    /**
+     * Finds the template closest to a glyph.
+     *
+     * @return The best match, or null if nothing was learned yet.
+     */
+    synchronized Match match(Glyph glyph) {
+        Template best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Template template : templates) {
+            int distance = template.glyph.distanceTo(glyph);
+            if (distance < bestDistance) {
+                best = template;
+                bestDistance = distance;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        int otherDistance = Integer.MAX_VALUE;
+        for (Template template : templates) {
+            if (template.character != best.character) {
+                otherDistance = Math.min(otherDistance, template.glyph.distanceTo(glyph));
+            }
+        }
+        return new Match(best.character, bestDistance, otherDistance);
+    }
+
+    /**
+     * Check if a character has been learned.
+     */
+    public synchronized boolean knows(char character) {
+        for (Template template : templates) {
+            if (template.character == character) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get how close a glyph is to a given character.
+     *
+     * @return The distance to the closest template of the character, or Integer.MAX_VALUE if it wasn't learned yet.
+     */
+    public synchronized int distanceTo(Glyph glyph, char character) {
+        int distance = Integer.MAX_VALUE;
+        for (Template template : templates) {
+            if (template.character == character) {
+                distance = Math.min(distance, template.glyph.distanceTo(glyph));
+            }
+        }
+        return distance;
+    }
+
+    private static class Template {
+        final Glyph glyph;
+        final char character;
+
+        Template(Glyph glyph, char character) {
+            this.glyph = glyph;
+            this.character = character;
+        }
+    }
+
+    /**
+     * The closest template to a glyph, and how much it stands out from templates of other characters.
+     */
+    static class Match {
+        final char character;
+        final int distance;
+        /**
+         * Distance to the closest template of another character, Integer.MAX_VALUE if there is none.
+         */
+        final int otherDistance;
+
+        Match(char character, int distance, int otherDistance) {
+            this.character = character;
+            this.distance = distance;
+            this.otherDistance = otherDistance;
+        }
+
+        boolean isConfident() {
+            return distance <= MAX_DISTANCE && otherDistance - distance >= MIN_MARGIN;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.kamron.pogoiv.ocr;
+
+import com.google.common.base.Optional;
+
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Reads the evolution candy cost by picking the most similar of the few costs a pokemon can have, instead of reading
+ * any number.
+ * The right side of the cost is sometimes hidden behind the floating IV button, so the glyphs only have to match the
+ * start of a cost. When several costs start the same way, the longest one is picked since it's the one most likely
+ * to be partially covered (a visible "1" is read as 100, not 12).
+ * The app doesn't ship the game font, so the classifier relies on the digits the recognizer learned from tesseract.
+ * Until it knows them, which takes a few scans on a new install, classify gives no result and the cost has to be read
+ * with tesseract instead, then completed with correctCoveredReading.
+ */
+public class EvolutionCostClassifier {
+
+    /**
+     * The possible costs, as text.
+     */
+    private final String[] costs;
+    private final DigitRecognizer recognizer;
+
+    /**
+     * Create a classifier.
+     *
+     * @param evolutionCandyCosts The evolution cost of every pokemon. Negative costs, for pokemon which can't evolve,
+     *                            are ignored.
+     * @param recognizer          The recognizer holding the templates of the digits.
+     */
+    public EvolutionCostClassifier(int[] evolutionCandyCosts, DigitRecognizer recognizer) {
+        TreeSet<Integer> distinctCosts = new TreeSet<>();
+        for (int cost : evolutionCandyCosts) {
+            if (cost > 0) {
+                distinctCosts.add(cost);
+            }
+        }
+        costs = new String[distinctCosts.size()];
+        int i = 0;
+        for (int cost : distinctCosts) {
+            costs[i++] = String.valueOf(cost);
+        }
+        this.recognizer = recognizer;
+    }
+
+    /**
+     * Finds the cost the glyphs of the evolution cost field show.
+     *
+     * @param glyphs The glyphs of the evolution cost, from left to right.
+     * @return The cost, or absent if the glyphs don't match any cost well enough, or match several costs which don't
+     *     start the same way. This happens until the digits of the costs have been learned by the recognizer.
+     */
+    public Optional<Integer> classify(List<Glyph> glyphs) {
+        if (glyphs.isEmpty() || !knowsDigitsOfCosts(glyphs.size())) {
+            return Optional.absent();
+        }
+        String bestCost = null;
+        int bestScore = Integer.MAX_VALUE;
+        //The best score of the costs which don't start like the best one.
+        int otherScore = Integer.MAX_VALUE;
+        for (String cost : costs) {
+            int score = score(glyphs, cost);
+            if (score == Integer.MAX_VALUE) {
+                continue;
+            }
+            if (bestCost != null && cost.startsWith(bestCost.substring(0, glyphs.size()))) {
+                //Same visible digits, so same score: keep the longest.
+                if (cost.length() > bestCost.length()) {
+                    bestCost = cost;
+                }
+            } else if (score < bestScore) {
+                otherScore = bestScore;
+                bestScore = score;
+                bestCost = cost;
+            } else {
+                otherScore = Math.min(otherScore, score);
+            }
+        }
+        if (bestCost == null || otherScore - bestScore < DigitRecognizer.MIN_MARGIN) {
+            return Optional.absent();
+        }
+        return Optional.of(Integer.parseInt(bestCost));
+    }
+
+    /**
+     * Checks if the recognizer learned all the digits the costs can have in the first positions. Until then, a glyph
+     * could look the most like a cost only because the right digit is unknown.
+     *
+     * @param digitCount How many digits of the costs to check.
+     */
+    private boolean knowsDigitsOfCosts(int digitCount) {
+        for (String cost : costs) {
+            for (int i = 0; i < Math.min(digitCount, cost.length()); i++) {
+                if (!recognizer.knows(cost.charAt(i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes how different the glyphs are from the start of a cost.
+     *
+     * @return The sum of the distances of the glyphs to the digits of the cost, or Integer.MAX_VALUE if there are more
+     *     glyphs than digits, or a glyph is too far from its digit.
+     */
+    private int score(List<Glyph> glyphs, String cost) {
+        if (glyphs.size() > cost.length()) {
+            return Integer.MAX_VALUE;
+        }
+        int score = 0;
+        for (int i = 0; i < glyphs.size(); i++) {
+            int distance = recognizer.distanceTo(glyphs.get(i), cost.charAt(i));
+            if (distance > DigitRecognizer.MAX_DISTANCE) {
+                return Integer.MAX_VALUE;
+            }
+            score += distance;
+        }
+        return score;
+    }
+
+    /**
+     * Completes a cost read by tesseract whose end was hidden behind the IV button, for when classify can't tell the
+     * cost yet. Only the readings which can't be a full cost are completed, with the cost they most likely are.
+     *
+     * @param readCost The cost read by tesseract.
+     * @return The cost the reading most likely shows.
+     */
+    public static int correctCoveredReading(int readCost) {
+        switch (readCost) {
+            case 1:
+            case 10:
+                return 100; //second zero hidden behind floating button
+            case 4:
+            case 40:
+                return 400; //damn magikarp
+            case 5:
+                return 50; //second zero hidden behind button
+            case 2:
+                return 25; //5 hidden behind button
+            default:
+                return readCost;
+        }
+    }
+
+    /**
+     * Checks if a scanned cost could be the reading of a cost whose end was hidden behind the IV button. The first
+     * digit is never covered, but the scan may have completed the hidden digits with the wrong cost, like 100 for a
+     * partially covered 12.
+     *
+     * @param scannedCost The cost which was scanned.
+     * @param cost        A cost a pokemon can have.
+     * @return true if both costs start with the same digit.
+     */
+    public static boolean couldBeCoveredReadingOf(int scannedCost, int cost) {
+        if (scannedCost <= 0 || cost <= 0) {
+            return false;
+        }
+        return String.valueOf(scannedCost).charAt(0) == String.valueOf(cost).charAt(0);
+    }
+}
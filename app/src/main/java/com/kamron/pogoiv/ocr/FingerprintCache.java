@@ -0,0 +1,221 @@
+package com.kamron.pogoiv.ocr;
+
+/**
+ * A fixed size cache of the values recognized in regions of the screen, keyed by their fingerprint.
+ * Entries are kept in an open addressing table, and evicted with the CLOCK algorithm: each entry has a referenced
+ * bit set when it's read, and the eviction hand skips (and clears) referenced entries, so recently read entries
+ * survive. Looking up an entry doesn't allocate anything.
+ * The cache can be backed by a slower store, which is read when an entry isn't in memory and written to along with
+ * the cache.
+ *
+ * @param <V> The type of the cached values.
+ */
+public class FingerprintCache<V> {
+
+    /**
+     * The key of the empty slots. Fingerprints which happen to be 0 are stored as EMPTY_KEY_REPLACEMENT.
+     */
+    private static final long EMPTY_KEY = 0;
+    private static final long EMPTY_KEY_REPLACEMENT = 1;
+
+    private final int maxSize;
+    private final Backend<V> backend;
+    private final int mask;
+    private final long[] keys;
+    private final Object[] values;
+    private final boolean[] referenced;
+    private int size = 0;
+    private int hand = 0;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+    private long backendHitCount = 0;
+
+    /**
+     * Create an empty cache, kept in memory only.
+     *
+     * @param maxSize The number of entries after which old entries are evicted.
+     */
+    public FingerprintCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * Create an empty cache.
+     *
+     * @param maxSize The number of entries after which old entries are evicted from memory.
+     * @param backend The store backing the cache, or null.
+     */
+    public FingerprintCache(int maxSize, Backend<V> backend) {
+        this.maxSize = maxSize;
+        this.backend = backend;
+        //Keep the table at most half full so that probe sequences stay short.
+        int capacity = Integer.highestOneBit(Math.max(1, maxSize) * 2 - 1) << 1;
+        this.mask = capacity - 1;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.referenced = new boolean[capacity];
+    }
+
+    /**
+     * Get the value cached for a fingerprint.
+     *
+     * @param fingerprint The fingerprint of the region.
+     * @return The value, or null if it's not in the cache.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V get(long fingerprint) {
+        int slot = findSlot(toKey(fingerprint));
+        if (keys[slot] == EMPTY_KEY) {
+            V value = backend != null ? backend.load(fingerprint) : null;
+            if (value == null) {
+                missCount++;
+            } else {
+                backendHitCount++;
+                insert(fingerprint, value);
+            }
+            return value;
+        }
+        hitCount++;
+        referenced[slot] = true;
+        return (V) values[slot];
+    }
+
+    /**
+     * Caches a value, evicting an old entry if the cache is full.
+     *
+     * @param fingerprint The fingerprint of the region.
+     * @param value       The value recognized in the region, not null.
+     */
+    public synchronized void put(long fingerprint, V value) {
+        insert(fingerprint, value);
+        if (backend != null) {
+            backend.store(fingerprint, value);
+        }
+    }
+
+    private void insert(long fingerprint, V value) {
+        long key = toKey(fingerprint);
+        int slot = findSlot(key);
+        if (keys[slot] == EMPTY_KEY) {
+            if (size >= maxSize) {
+                evict();
+                slot = findSlot(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+        referenced[slot] = false;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Get how many lookups missed the memory but were found in the backend.
+     */
+    public synchronized long getBackendHitCount() {
+        return backendHitCount;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FingerprintCache[size=" + size + ",hits=" + hitCount + ",backendHits=" + backendHitCount
+                + ",misses=" + missCount + ",evictions=" + evictionCount + "]";
+    }
+
+    private static long toKey(long fingerprint) {
+        return fingerprint == EMPTY_KEY ? EMPTY_KEY_REPLACEMENT : fingerprint;
+    }
+
+    private int homeSlot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    /**
+     * Find the slot holding a key, or the empty slot where it should be inserted.
+     */
+    private int findSlot(long key) {
+        int slot = homeSlot(key);
+        while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Moves the clock hand to the first entry which wasn't read since the hand last passed it, and removes it.
+     */
+    private void evict() {
+        while (true) {
+            if (keys[hand] != EMPTY_KEY) {
+                if (referenced[hand]) {
+                    referenced[hand] = false;
+                } else {
+                    remove(hand);
+                    evictionCount++;
+                    return;
+                }
+            }
+            hand = (hand + 1) & mask;
+        }
+    }
+
+    /**
+     * Empties a slot, moving back the following entries of the probe sequence so that they can still be found.
+     */
+    private void remove(int slot) {
+        int free = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (keys[next] == EMPTY_KEY) {
+                break;
+            }
+            //The entry can fill the free slot only if the free slot is between its home slot and its current slot.
+            int home = homeSlot(keys[next]);
+            boolean homeAfterFree = next > free ? (home > free && home <= next) : (home > free || home <= next);
+            if (!homeAfterFree) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                referenced[free] = referenced[next];
+                free = next;
+            }
+        }
+        keys[free] = EMPTY_KEY;
+        values[free] = null;
+        referenced[free] = false;
+        size--;
+    }
+
+    /**
+     * A slower store backing a cache.
+     *
+     * @param <V> The type of the cached values.
+     */
+    public interface Backend<V> {
+        /**
+         * Get the value stored for a fingerprint.
+         *
+         * @return The value, or null if it's not stored.
+         */
+        V load(long fingerprint);
+
+        void store(long fingerprint, V value);
+    }
+}
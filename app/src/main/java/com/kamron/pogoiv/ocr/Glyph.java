@@ -0,0 +1,85 @@
+package com.kamron.pogoiv.ocr;
+
+/**
+ * A single character cut out of a binarized strip, scaled down to a small fixed size grid so that it can be compared
+ * to other glyphs regardless of the font size.
+ * The glyph keeps its aspect ratio: it is scaled to the height of the grid and centered horizontally, so that narrow
+ * characters like 1 don't look like a filled block.
+ */
+public class Glyph {
+    public static final int GRID_WIDTH = 10;
+    public static final int GRID_HEIGHT = 12;
+    /**
+     * The grid is stored in two longs, the first one holding the top half of the rows.
+     */
+    private static final int ROWS_PER_WORD = GRID_HEIGHT / 2;
+
+    /**
+     * The cells of the top half of the grid, one bit per cell, row after row. A set bit is ink.
+     */
+    public final long topBits;
+    /**
+     * The cells of the bottom half of the grid.
+     */
+    public final long bottomBits;
+    /**
+     * Position of the left side of the glyph in the strip it was cut from.
+     */
+    public final int left;
+    public final int width;
+    public final int height;
+
+    public Glyph(long topBits, long bottomBits, int left, int width, int height) {
+        this.topBits = topBits;
+        this.bottomBits = bottomBits;
+        this.left = left;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Count how many cells of the grid differ between two glyphs.
+     */
+    public int distanceTo(Glyph other) {
+        return Long.bitCount(topBits ^ other.topBits) + Long.bitCount(bottomBits ^ other.bottomBits);
+    }
+
+    /**
+     * Scales a part of a binarized strip down to the grid.
+     *
+     * @param atlas  The atlas holding the strip.
+     * @param strip  The strip the glyph is in.
+     * @param left   The left side of the glyph in the strip.
+     * @param top    The top side of the glyph in the strip.
+     * @param width  The width of the glyph.
+     * @param height The height of the glyph.
+     * @return The scaled glyph.
+     */
+    public static Glyph fromStrip(BinaryAtlas atlas, BinaryAtlas.Strip strip, int left, int top, int width,
+                                  int height) {
+        int scaledWidth = Math.max(1, Math.min(GRID_WIDTH, Math.round((float) width * GRID_HEIGHT / height)));
+        int gridLeft = (GRID_WIDTH - scaledWidth) / 2;
+        long[] bits = new long[2];
+        for (int cy = 0; cy < GRID_HEIGHT; cy++) {
+            int yStart = top + cy * height / GRID_HEIGHT;
+            int yEnd = Math.max(yStart + 1, top + (cy + 1) * height / GRID_HEIGHT);
+            for (int cx = 0; cx < scaledWidth; cx++) {
+                int xStart = left + cx * width / scaledWidth;
+                int xEnd = Math.max(xStart + 1, left + (cx + 1) * width / scaledWidth);
+                //A cell is ink if at least half of the pixels it covers are ink.
+                int ink = 0;
+                for (int y = yStart; y < yEnd; y++) {
+                    for (int x = xStart; x < xEnd; x++) {
+                        if (atlas.getPixel(strip, x, y) == BinaryAtlas.INK) {
+                            ink++;
+                        }
+                    }
+                }
+                if (ink * 2 >= (yEnd - yStart) * (xEnd - xStart)) {
+                    bits[cy / ROWS_PER_WORD] |= 1L << ((cy % ROWS_PER_WORD) * GRID_WIDTH + gridLeft + cx);
+                }
+            }
+        }
+        return new Glyph(bits[0], bits[1], left, width, height);
+    }
+}
@@ -0,0 +1,68 @@
+package com.kamron.pogoiv.ocr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cuts a binarized strip containing a single line of text into glyphs, using the columns without any ink as
+ * separators. Characters which touch each other end up in the same glyph.
+ */
+public class GlyphSegmenter {
+
+    /**
+     * Glyphs shorter than this fraction of the tallest glyph of the strip are considered noise.
+     */
+    private static final int MIN_HEIGHT_DIVISOR = 3;
+
+    private GlyphSegmenter() {
+    }
+
+    /**
+     * Finds the glyphs of a strip, from left to right.
+     *
+     * @param atlas The atlas holding the strip.
+     * @param strip A strip filled by BinaryAtlas.binarize.
+     * @return The glyphs found, possibly none.
+     */
+    public static List<Glyph> segment(BinaryAtlas atlas, BinaryAtlas.Strip strip) {
+        int width = strip.getWidth();
+        int height = strip.getHeight();
+
+        //Find the runs of columns which contain ink, and the rows covered by the ink of each run.
+        List<int[]> boxes = new ArrayList<>();
+        int maxHeight = 0;
+        int runStart = -1;
+        int top = height;
+        int bottom = -1;
+        for (int x = 0; x <= width; x++) {
+            boolean hasInk = false;
+            if (x < width) {
+                for (int y = 0; y < height; y++) {
+                    if (atlas.getPixel(strip, x, y) == BinaryAtlas.INK) {
+                        hasInk = true;
+                        top = Math.min(top, y);
+                        bottom = Math.max(bottom, y);
+                    }
+                }
+            }
+            if (hasInk && runStart < 0) {
+                runStart = x;
+            } else if (!hasInk && runStart >= 0) {
+                int boxHeight = bottom - top + 1;
+                boxes.add(new int[]{runStart, top, x - runStart, boxHeight});
+                maxHeight = Math.max(maxHeight, boxHeight);
+                runStart = -1;
+                top = height;
+                bottom = -1;
+            }
+        }
+
+        List<Glyph> glyphs = new ArrayList<>(boxes.size());
+        for (int[] box : boxes) {
+            if (box[3] * MIN_HEIGHT_DIVISOR >= maxHeight) {
+                glyphs.add(Glyph.fromStrip(atlas, strip, box[0], box[1], box[2], box[3]));
+            }
+        }
+        return glyphs;
+    }
+}
@@ -0,0 +1,378 @@
+package com.kamron.pogoiv.ocr;
+
+import com.google.common.base.Optional;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import timber.log.Timber;
+
+/**
+ * An OCR result cache stored in a memory-mapped file, so that the pokemon scanned in a previous session don't have to
+ * go through OCR again.
+ * The file is a header followed by an open addressing table of fixed size records, each holding the fingerprint of a
+ * region, which field it is, and what was recognized in it. Entries are evicted with the CLOCK algorithm like in
+ * FingerprintCache. The file is only opened on the first lookup. If it can't be opened, the cache stays empty. Once
+ * closed, the cache stays empty and doesn't write anything, so that late OCR tasks can't open the file again.
+ * <p>
+ * Record layout: fingerprint (8 bytes), field (1), flags (1), value length (2), value (52).
+ */
+public class PersistentOcrCache {
+
+    public static final int FIELD_NAME = 1;
+    public static final int FIELD_CANDY_NAME = 2;
+    public static final int FIELD_HP = 3;
+    public static final int FIELD_CANDY_AMOUNT = 4;
+    public static final int FIELD_EVOLUTION_COST = 5;
+    public static final int FIELD_MIN_HP = 6;
+
+    private static final int MAGIC = 0x474f4956; //"GOIV"
+    private static final int VERSION = 1;
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_SIZE_FIELD = 12;
+    private static final int HEADER_HAND = 16;
+
+    private static final int RECORD_SIZE = 64;
+    private static final int RECORD_FINGERPRINT = 0;
+    private static final int RECORD_FIELD = 8;
+    private static final int RECORD_FLAGS = 9;
+    private static final int RECORD_LENGTH = 10;
+    private static final int RECORD_VALUE = 12;
+    private static final int MAX_VALUE_LENGTH = RECORD_SIZE - RECORD_VALUE;
+
+    private static final int FLAG_USED = 1;
+    private static final int FLAG_REFERENCED = 2;
+    /**
+     * The value is Optional.absent().
+     */
+    private static final int FLAG_ABSENT = 4;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private final int capacity;
+    private final int maxSize;
+    private RandomAccessFile randomAccessFile;
+    private MappedByteBuffer buffer;
+    private boolean opened = false;
+    private boolean closed = false;
+
+    /**
+     * Create a cache stored in a file, without opening it yet.
+     *
+     * @param file The file holding the cache. It's created if it doesn't exist.
+     */
+    public PersistentOcrCache(File file) {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a cache stored in a file, without opening it yet.
+     *
+     * @param file     The file holding the cache. It's created if it doesn't exist.
+     * @param capacity The number of records in the file, a power of two. An existing file with a different capacity
+     *                 is cleared.
+     */
+    public PersistentOcrCache(File file, int capacity) {
+        this.file = file;
+        this.capacity = capacity;
+        //Keep the table at most three quarters full so that probe sequences stay short.
+        this.maxSize = capacity / 4 * 3;
+    }
+
+    /**
+     * Get a backend storing text values of a field.
+     */
+    public FingerprintCache.Backend<String> textField(final int field) {
+        return new FingerprintCache.Backend<String>() {
+            @Override public String load(long fingerprint) {
+                return loadText(field, fingerprint);
+            }
+
+            @Override public void store(long fingerprint, String value) {
+                storeText(field, fingerprint, value);
+            }
+        };
+    }
+
+    /**
+     * Get a backend storing numeric values of a field, which can be absent when the OCR failed.
+     */
+    public FingerprintCache.Backend<Optional<Integer>> numberField(final int field) {
+        return new FingerprintCache.Backend<Optional<Integer>>() {
+            @Override public Optional<Integer> load(long fingerprint) {
+                return loadNumber(field, fingerprint);
+            }
+
+            @Override public void store(long fingerprint, Optional<Integer> value) {
+                storeNumber(field, fingerprint, value);
+            }
+        };
+    }
+
+    /**
+     * Get the text stored for a region.
+     *
+     * @return The text, or null if nothing is stored for the region.
+     */
+    public synchronized String loadText(int field, long fingerprint) {
+        int record = findUsedRecord(field, fingerprint);
+        if (record < 0) {
+            return null;
+        }
+        int length = buffer.getShort(record + RECORD_LENGTH);
+        if (length < 0 || length > MAX_VALUE_LENGTH) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = buffer.get(record + RECORD_VALUE + i);
+        }
+        return new String(value, UTF_8);
+    }
+
+    /**
+     * Stores the text recognized in a region. Text too long to fit in a record isn't stored.
+     */
+    public synchronized void storeText(int field, long fingerprint, String text) {
+        byte[] value = text.getBytes(UTF_8);
+        if (value.length > MAX_VALUE_LENGTH) {
+            return;
+        }
+        int record = prepareRecord(field, fingerprint, 0);
+        if (record < 0) {
+            return;
+        }
+        buffer.putShort(record + RECORD_LENGTH, (short) value.length);
+        for (int i = 0; i < value.length; i++) {
+            buffer.put(record + RECORD_VALUE + i, value[i]);
+        }
+    }
+
+    /**
+     * Get the number stored for a region.
+     *
+     * @return The number, Optional.absent() if the OCR failed on the region, or null if nothing is stored for it.
+     */
+    public synchronized Optional<Integer> loadNumber(int field, long fingerprint) {
+        int record = findUsedRecord(field, fingerprint);
+        if (record < 0) {
+            return null;
+        }
+        if ((buffer.get(record + RECORD_FLAGS) & FLAG_ABSENT) != 0) {
+            return Optional.absent();
+        }
+        return Optional.of(buffer.getInt(record + RECORD_VALUE));
+    }
+
+    /**
+     * Stores the number recognized in a region, or Optional.absent() if the OCR failed.
+     */
+    public synchronized void storeNumber(int field, long fingerprint, Optional<Integer> number) {
+        int record = prepareRecord(field, fingerprint, number.isPresent() ? 0 : FLAG_ABSENT);
+        if (record < 0) {
+            return;
+        }
+        buffer.putShort(record + RECORD_LENGTH, (short) 4);
+        buffer.putInt(record + RECORD_VALUE, number.or(0));
+    }
+
+    /**
+     * Writes the changes to the disk, and closes the file. Loading from the cache afterwards finds nothing, and
+     * storing in it does nothing.
+     */
+    public synchronized void close() {
+        closed = true;
+        release();
+    }
+
+    private void release() {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+        if (randomAccessFile != null) {
+            try {
+                randomAccessFile.close();
+            } catch (IOException e) {
+                Timber.e(e, "Could not close the OCR cache file");
+            }
+            randomAccessFile = null;
+        }
+        opened = false;
+    }
+
+    /**
+     * Maps the file in memory if it isn't yet, and clears it if it isn't a valid cache file.
+     *
+     * @return false if the file couldn't be opened, or the cache was closed.
+     */
+    private boolean ensureOpen() {
+        if (closed) {
+            return false;
+        }
+        if (opened) {
+            return buffer != null;
+        }
+        opened = true;
+        long length = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            boolean valid = randomAccessFile.length() == length;
+            randomAccessFile.setLength(length);
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            valid = valid && buffer.getInt(HEADER_MAGIC) == MAGIC && buffer.getInt(HEADER_VERSION) == VERSION
+                    && buffer.getInt(HEADER_CAPACITY) == capacity;
+            if (!valid) {
+                clear();
+            }
+            return true;
+        } catch (IOException e) {
+            Timber.e(e, "Could not open the OCR cache file, OCR results won't be saved");
+            release();
+            opened = true;
+            return false;
+        }
+    }
+
+    private void clear() {
+        for (int i = 0; i < capacity; i++) {
+            buffer.put(recordOffset(i) + RECORD_FLAGS, (byte) 0);
+        }
+        buffer.putInt(HEADER_MAGIC, MAGIC);
+        buffer.putInt(HEADER_VERSION, VERSION);
+        buffer.putInt(HEADER_CAPACITY, capacity);
+        buffer.putInt(HEADER_SIZE_FIELD, 0);
+        buffer.putInt(HEADER_HAND, 0);
+    }
+
+    private static int recordOffset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private int homeSlot(int field, long fingerprint) {
+        long key = fingerprint ^ (field * 0x9e3779b97f4a7c15L);
+        return (int) (key ^ (key >>> 32)) & (capacity - 1);
+    }
+
+    private boolean isUsed(int slot) {
+        return (buffer.get(recordOffset(slot) + RECORD_FLAGS) & FLAG_USED) != 0;
+    }
+
+    private boolean holds(int slot, int field, long fingerprint) {
+        int record = recordOffset(slot);
+        return buffer.get(record + RECORD_FIELD) == field && buffer.getLong(record + RECORD_FINGERPRINT) == fingerprint;
+    }
+
+    /**
+     * Find the slot holding an entry, or the empty slot where it should be inserted.
+     */
+    private int findSlot(int field, long fingerprint) {
+        int slot = homeSlot(field, fingerprint);
+        while (isUsed(slot) && !holds(slot, field, fingerprint)) {
+            slot = (slot + 1) & (capacity - 1);
+        }
+        return slot;
+    }
+
+    /**
+     * Find the record of an entry, and mark it as referenced.
+     *
+     * @return The offset of the record in the file, or -1 if there is no such entry.
+     */
+    private int findUsedRecord(int field, long fingerprint) {
+        if (!ensureOpen()) {
+            return -1;
+        }
+        int slot = findSlot(field, fingerprint);
+        if (!isUsed(slot)) {
+            return -1;
+        }
+        int record = recordOffset(slot);
+        buffer.put(record + RECORD_FLAGS, (byte) (buffer.get(record + RECORD_FLAGS) | FLAG_REFERENCED));
+        return record;
+    }
+
+    /**
+     * Find or create the record of an entry, evicting another entry if the table is full.
+     *
+     * @param flags The flags of the value, besides FLAG_USED.
+     * @return The offset of the record in the file, or -1 if the file couldn't be opened.
+     */
+    private int prepareRecord(int field, long fingerprint, int flags) {
+        if (!ensureOpen()) {
+            return -1;
+        }
+        int slot = findSlot(field, fingerprint);
+        if (!isUsed(slot)) {
+            int size = buffer.getInt(HEADER_SIZE_FIELD);
+            if (size >= maxSize) {
+                evict();
+                size--;
+                slot = findSlot(field, fingerprint);
+            }
+            buffer.putInt(HEADER_SIZE_FIELD, size + 1);
+        }
+        int record = recordOffset(slot);
+        buffer.putLong(record + RECORD_FINGERPRINT, fingerprint);
+        buffer.put(record + RECORD_FIELD, (byte) field);
+        buffer.put(record + RECORD_FLAGS, (byte) (FLAG_USED | flags));
+        return record;
+    }
+
+    /**
+     * Moves the clock hand to the first entry which wasn't read since the hand last passed it, and removes it.
+     */
+    private void evict() {
+        int hand = buffer.getInt(HEADER_HAND);
+        while (true) {
+            int flagsOffset = recordOffset(hand) + RECORD_FLAGS;
+            byte flags = buffer.get(flagsOffset);
+            if ((flags & FLAG_USED) != 0) {
+                if ((flags & FLAG_REFERENCED) != 0) {
+                    buffer.put(flagsOffset, (byte) (flags & ~FLAG_REFERENCED));
+                } else {
+                    remove(hand);
+                    buffer.putInt(HEADER_HAND, hand);
+                    return;
+                }
+            }
+            hand = (hand + 1) & (capacity - 1);
+        }
+    }
+
+    /**
+     * Empties a slot, moving back the following entries of the probe sequence so that they can still be found.
+     */
+    private void remove(int slot) {
+        int mask = capacity - 1;
+        int free = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (!isUsed(next)) {
+                break;
+            }
+            int nextRecord = recordOffset(next);
+            int home = homeSlot(buffer.get(nextRecord + RECORD_FIELD), buffer.getLong(nextRecord + RECORD_FINGERPRINT));
+            boolean homeAfterFree = next > free ? (home > free && home <= next) : (home > free || home <= next);
+            if (!homeAfterFree) {
+                int freeRecord = recordOffset(free);
+                for (int i = 0; i < RECORD_SIZE; i++) {
+                    buffer.put(freeRecord + i, buffer.get(nextRecord + i));
+                }
+                free = next;
+            }
+        }
+        buffer.put(recordOffset(free) + RECORD_FLAGS, (byte) 0);
+    }
+}
@@ -0,0 +1,76 @@
+package com.kamron.pogoiv.ocr;
+
+/**
+ * A rectangular view into a buffer of ARGB pixels, laid out like the array filled by Bitmap.getPixels.
+ * The region doesn't copy the pixels, so creating one is cheap, but its content changes whenever the underlying
+ * buffer is overwritten.
+ */
+public class PixelRegion {
+    public final int[] pixels;
+    /**
+     * Index in pixels of the top left pixel of the region.
+     */
+    public final int offset;
+    /**
+     * Distance in pixels between the start of two consecutive rows, which is the width of the whole buffer.
+     */
+    public final int stride;
+    public final int width;
+    public final int height;
+
+    public PixelRegion(int[] pixels, int offset, int stride, int width, int height) {
+        this.pixels = pixels;
+        this.offset = offset;
+        this.stride = stride;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Get a pixel of the region.
+     *
+     * @param x horizontal coordinate, relative to the left side of the region
+     * @param y vertical coordinate, relative to the top side of the region
+     * @return the ARGB color of the pixel
+     */
+    public int getPixel(int x, int y) {
+        return pixels[offset + y * stride + x];
+    }
+
+    /**
+     * Get a view of a part of this region, sharing the same buffer.
+     *
+     * @param x      left side of the sub region, relative to this region
+     * @param y      top side of the sub region, relative to this region
+     * @param width  width of the sub region
+     * @param height height of the sub region
+     * @return The new region.
+     */
+    public PixelRegion subRegion(int x, int y, int width, int height) {
+        return new PixelRegion(pixels, offset + y * stride + x, stride, width, height);
+    }
+
+    /**
+     * Copies the pixels of the region into a new buffer, which stays valid when the buffer of this region is
+     * reused.
+     *
+     * @return A region with the same pixels, in its own buffer.
+     */
+    public PixelRegion copy() {
+        int[] dst = new int[width * height];
+        copyTo(dst, 0);
+        return new PixelRegion(dst, 0, width, width, height);
+    }
+
+    /**
+     * Copies the pixels of the region, row after row, into an array with no padding between rows.
+     *
+     * @param dst       the array to copy to, at least width * height long starting from dstOffset
+     * @param dstOffset where to copy the top left pixel of the region
+     */
+    public void copyTo(int[] dst, int dstOffset) {
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(pixels, offset + y * stride, dst, dstOffset + y * width, width);
+        }
+    }
+}
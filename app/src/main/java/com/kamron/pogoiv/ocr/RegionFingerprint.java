@@ -0,0 +1,46 @@
+package com.kamron.pogoiv.ocr;
+
+/**
+ * Computes 64-bit fingerprints of regions of the screen, used as keys to cache what was recognized in them.
+ */
+public class RegionFingerprint {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private RegionFingerprint() {
+    }
+
+    /**
+     * Fingerprints a region, reading its pixels in place.
+     *
+     * @param region  The region to fingerprint.
+     * @param rowStep Only one row out of rowStep is read, which is enough for text spanning many rows. 1 reads
+     *                every row.
+     * @return The fingerprint, which depends on the size of the region and the content of the rows read.
+     */
+    public static long of(PixelRegion region, int rowStep) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = (hash ^ region.width) * FNV_PRIME;
+        hash = (hash ^ region.height) * FNV_PRIME;
+        for (int y = 0; y < region.height; y += rowStep) {
+            int rowStart = region.offset + y * region.stride;
+            for (int i = rowStart; i < rowStart + region.width; i++) {
+                hash = (hash ^ (region.pixels[i] & 0xffffffffL)) * FNV_PRIME;
+            }
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Spreads every bit of the hash over the whole result, since FNV only mixes the low bits of each pixel upwards.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -13,14 +13,16 @@ import com.kamron.pogoiv.R;
 import com.kamron.pogoiv.logic.IVCombination;
 import com.kamron.pogoiv.logic.IVScanResult;
 
+import java.util.List;
+
 /**
  * Created by OskO on 29/08/16.
  */
 public class IVResultsAdapter extends RecyclerView.Adapter<IVResultsAdapter.ResultsViewHolder> {
-    private final IVScanResult dataSet;
+    private final List<IVCombination> dataSet;
 
     public IVResultsAdapter(IVScanResult ivScanResult) {
-        dataSet = ivScanResult;
+        dataSet = ivScanResult.getSortedCombinations();
     }
 
     @Override
@@ -31,7 +33,7 @@ public class IVResultsAdapter extends RecyclerView.Adapter<IVResultsAdapter.Resu
 
     @Override
     public void onBindViewHolder(ResultsViewHolder holder, int position) {
-        IVCombination currentSet = dataSet.iVCombinations.get(position);
+        IVCombination currentSet = dataSet.get(position);
         holder.resultAttack.setText(String.valueOf(currentSet.att));
         holder.resultDefense.setText(String.valueOf(currentSet.def));
         holder.resultHP.setText(String.valueOf(currentSet.sta));
@@ -51,7 +53,7 @@ public class IVResultsAdapter extends RecyclerView.Adapter<IVResultsAdapter.Resu
 
     @Override
     public int getItemCount() {
-        return dataSet.iVCombinations.size();
+        return dataSet.size();
     }
 
     class ResultsViewHolder extends RecyclerView.ViewHolder {
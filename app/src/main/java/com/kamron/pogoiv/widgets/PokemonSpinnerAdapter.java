@@ -10,7 +10,7 @@ import android.widget.TextView;
 import com.kamron.pogoiv.GuiUtil;
 import com.kamron.pogoiv.logic.Pokemon;
 
-import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Spinner formatter.
@@ -18,9 +18,9 @@ import java.util.ArrayList;
 public class PokemonSpinnerAdapter extends ArrayAdapter<Pokemon> {
     private final Context context;
     private final int textViewResourceId;
-    private ArrayList<Pokemon> pokemons;
+    private List<Pokemon> pokemons;
 
-    public PokemonSpinnerAdapter(Context context, int textViewResourceId, ArrayList<Pokemon> pokemons) {
+    public PokemonSpinnerAdapter(Context context, int textViewResourceId, List<Pokemon> pokemons) {
         super(context, textViewResourceId, pokemons);
         this.context = context;
         this.textViewResourceId = textViewResourceId;
@@ -37,7 +37,7 @@ public class PokemonSpinnerAdapter extends ArrayAdapter<Pokemon> {
      *
      * @param list the new list of pokemon to show in the spinner
      */
-    public void updatePokemonList(ArrayList<Pokemon> list) {
+    public void updatePokemonList(List<Pokemon> list) {
         pokemons = list;
         clear();
         addAll(pokemons);
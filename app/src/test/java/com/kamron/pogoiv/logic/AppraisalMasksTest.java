@@ -0,0 +1,62 @@
+package com.kamron.pogoiv.logic;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AppraisalMasksTest {
+
+    @Test
+    public void combinedMaskMatchesEachAnswer() {
+        IVSet all = IVSet.full();
+        assertThat(all.size()).isEqualTo(4096);
+        for (int signature = 0; signature < 8; signature++) {
+            boolean att = (signature & 4) != 0;
+            boolean def = (signature & 2) != 0;
+            boolean sta = (signature & 1) != 0;
+            for (int percentage = 0; percentage <= 4; percentage++) {
+                for (int iv = 0; iv <= 4; iv++) {
+                    IVSet expected = new IVSet(all);
+                    if (signature != 0) {
+                        expected.retainHighestStatSignature(att, def, sta);
+                    }
+                    expected.retainAll(AppraisalMasks.getPercentageRange(percentage));
+                    expected.retainAll(AppraisalMasks.getIVRange(iv));
+                    assertThat(AppraisalMasks.getMask(att, def, sta, percentage, iv)).isEqualTo(expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void noAnswerKeepsEverything() {
+        assertThat(AppraisalMasks.getMask(false, false, false, 0, 0).size()).isEqualTo(4096);
+        assertThat(AppraisalMasks.getPercentageRange(1).getLowestTotal().percentPerfect).isGreaterThanOrEqualTo(81);
+        assertThat(AppraisalMasks.getIVRange(1).size()).isEqualTo(4096 - 15 * 15 * 15);
+    }
+
+    @Test
+    public void refiningLeavesMasksUnchanged() {
+        IVSet percentageRange = AppraisalMasks.getPercentageRange(2);
+        IVSet ivRange = AppraisalMasks.getIVRange(3);
+        IVSet highestStats = AppraisalMasks.getHighestStats(true, false, true);
+        IVSet mask = AppraisalMasks.getMask(true, false, true, 2, 3);
+
+        IVSet refined = IVSet.full();
+        for (int i = 0; i < 2; i++) {
+            AppraisalMasks.retainPercentageRange(refined, 1);
+            AppraisalMasks.retainIVRange(refined, 1);
+            AppraisalMasks.retainHighestStats(refined, false, true, false);
+        }
+        AppraisalMasks.getPercentageRange(2).clear();
+        AppraisalMasks.getIVRange(3).clear();
+        AppraisalMasks.getHighestStats(true, false, true).clear();
+        AppraisalMasks.getMask(true, false, true, 2, 3).clear();
+
+        assertThat(AppraisalMasks.getPercentageRange(2)).isEqualTo(percentageRange);
+        assertThat(AppraisalMasks.getIVRange(3)).isEqualTo(ivRange);
+        assertThat(AppraisalMasks.getHighestStats(true, false, true)).isEqualTo(highestStats);
+        assertThat(AppraisalMasks.getMask(true, false, true, 2, 3)).isEqualTo(mask);
+        assertThat(mask.isEmpty()).isFalse();
+    }
+}
@@ -0,0 +1,42 @@
+package com.kamron.pogoiv.logic;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static com.kamron.pogoiv.logic.TestPokedex.formulaCp;
+import static com.kamron.pogoiv.logic.TestPokedex.formulaHp;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DerivedStatsTest {
+
+    private static PokeInfoCalculator calculator;
+
+    @BeforeClass
+    public static void loadPokedex() throws Exception {
+        calculator = TestPokedex.load();
+    }
+
+    @Test
+    public void derivesStatsOfEvolutionLine() {
+        Pokemon pokemon = calculator.getBasePokemons().get(0);
+        IVScanResult result = calculator.getIVPossibilities(pokemon, 12.5, formulaHp(pokemon, 12.5, 9),
+                formulaCp(pokemon, 12.5, 4, 13, 9));
+        DerivedStats derivedStats = result.getDerivedStats(calculator);
+        assertThat(result.getDerivedStats(calculator)).isSameAs(derivedStats);
+        assertThat(derivedStats.getEvolutionLine()).isEqualTo(calculator.getEvolutionLine(pokemon));
+        for (Pokemon evolution : derivedStats.getEvolutionLine()) {
+            for (int levelIdx = 0; levelIdx < Data.getLevelIdxCount(); levelIdx++) {
+                double level = Data.levelIdxToLevel(levelIdx);
+                CPRange expected = calculator.getCpRangeAtLevel(evolution, result.getCombinationLowIVs(),
+                        result.getCombinationHighIVs(), level);
+                CPRange cpRange = derivedStats.getCpRangeAtLevel(evolution, level);
+                assertThat(cpRange.low).isEqualTo(expected.low);
+                assertThat(cpRange.high).isEqualTo(expected.high);
+                assertThat(derivedStats.getPerfectCpAtLevel(evolution, level)).isEqualTo(
+                        calculator.getCpRangeAtLevel(evolution, IVCombination.MAX, IVCombination.MAX, level).high);
+                assertThat(derivedStats.getHPAtLevel(evolution, level))
+                        .isEqualTo(calculator.getHPAtLevel(result, level, evolution));
+            }
+        }
+    }
+}
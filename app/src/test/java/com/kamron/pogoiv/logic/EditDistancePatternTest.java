@@ -0,0 +1,48 @@
+package com.kamron.pogoiv.logic;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EditDistancePatternTest {
+
+    @Test
+    public void matchesLevenshteinDistance() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String pattern = randomString(random, random.nextInt(70));
+            String text = randomString(random, random.nextInt(70));
+            assertThat(new EditDistancePattern(pattern).distanceTo(text.toCharArray(), Integer.MAX_VALUE))
+                    .as(pattern + " / " + text)
+                    .isEqualTo(Data.levenshteinDistance(pattern, text));
+        }
+    }
+
+    @Test
+    public void stopsAboveMaxDistance() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            String pattern = randomString(random, random.nextInt(20));
+            String text = randomString(random, random.nextInt(20));
+            int maxDistance = random.nextInt(10);
+            int distance = Data.levenshteinDistance(pattern, text);
+            int bounded = new EditDistancePattern(pattern).distanceTo(text.toCharArray(), maxDistance);
+            if (distance <= maxDistance) {
+                assertThat(bounded).isEqualTo(distance);
+            } else {
+                assertThat(bounded).isGreaterThan(maxDistance);
+            }
+        }
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            //A small alphabet, so that the strings share many characters.
+            builder.append("abcde♀".charAt(random.nextInt(6)));
+        }
+        return builder.toString();
+    }
+}
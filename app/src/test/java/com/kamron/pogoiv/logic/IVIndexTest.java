@@ -0,0 +1,50 @@
+package com.kamron.pogoiv.logic;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IVIndexTest {
+
+    private static final Pokemon BULBASAUR = new Pokemon("Bulbasaur", "Bulbasaur", 0, 118, 118, 90, -1, 25);
+
+    @Test
+    public void findsEveryCombinationOfEveryCpAndHp() {
+        SpeciesStatTable table = new SpeciesStatTable(BULBASAUR);
+        IVIndex index = new IVIndex(table);
+        for (int levelIdx : new int[]{0, 19, 78}) {
+            //The HP of a few stamina IVs, and an HP no pokemon has.
+            int[] hps = {table.getHp(levelIdx, 0), table.getHp(levelIdx, 7), table.getHp(levelIdx, 15), 5};
+            for (int hp : hps) {
+                for (int cp = 9; cp <= 1200; cp += 7) {
+                    List<Short> expected = new ArrayList<>();
+                    for (int sta = 0; sta < 16; sta++) {
+                        for (int def = 0; def < 16; def++) {
+                            for (int att = 0; att < 16; att++) {
+                                if (table.getHp(levelIdx, sta) == hp && table.getCp(levelIdx, att, def, sta) == cp) {
+                                    expected.add((short) SpeciesStatTable.ivIndex(att, def, sta));
+                                }
+                            }
+                        }
+                    }
+                    List<Short> found = new ArrayList<>();
+                    for (short ivCode : index.findIVCodes(levelIdx, hp, cp)) {
+                        found.add(ivCode);
+                    }
+                    assertThat(found).isEqualTo(expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void unpacksIVs() {
+        short ivCode = (short) SpeciesStatTable.ivIndex(3, 14, 15);
+        assertThat(IVIndex.getAttackIV(ivCode)).isEqualTo(3);
+        assertThat(IVIndex.getDefenseIV(ivCode)).isEqualTo(14);
+        assertThat(IVIndex.getStaminaIV(ivCode)).isEqualTo(15);
+    }
+}
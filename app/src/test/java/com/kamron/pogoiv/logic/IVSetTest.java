@@ -0,0 +1,113 @@
+package com.kamron.pogoiv.logic;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IVSetTest {
+
+    private static IVSet randomSet(Random random, int size) {
+        IVSet set = new IVSet();
+        for (int i = 0; i < size; i++) {
+            set.add(random.nextInt(16), random.nextInt(16), random.nextInt(16));
+        }
+        return set;
+    }
+
+    private static List<IVCombination> toList(IVSet set) {
+        List<IVCombination> list = new ArrayList<>();
+        for (IVCombination combination : set) {
+            list.add(combination);
+        }
+        return list;
+    }
+
+    @Test
+    public void iteratesInIndexOrder() {
+        IVSet set = new IVSet();
+        set.add(15, 15, 15);
+        set.add(3, 0, 0);
+        set.add(0, 1, 0);
+        set.add(0, 0, 1);
+        assertThat(toList(set)).containsExactly(IVCombination.get(3, 0, 0), IVCombination.get(0, 1, 0),
+                IVCombination.get(0, 0, 1), IVCombination.get(15, 15, 15));
+        assertThat(set.size()).isEqualTo(4);
+        assertThat(set.first()).isSameAs(IVCombination.get(3, 0, 0));
+    }
+
+    @Test
+    public void intersectsLikeLists() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            IVSet a = randomSet(random, 300);
+            IVSet b = randomSet(random, 300);
+            List<IVCombination> expected = toList(a);
+            expected.retainAll(toList(b));
+            assertThat(toList(IVSet.intersection(a, b))).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void findsLowestAndHighestLikeCollections() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            IVSet set = randomSet(random, 1 + random.nextInt(50));
+            List<IVCombination> list = toList(set);
+            assertThat(set.getLowestTotal()).isSameAs(Collections.min(list, IVCombination.totalComparator));
+            assertThat(set.getHighestTotal()).isSameAs(Collections.max(list, IVCombination.totalComparator));
+            int sum = 0;
+            for (IVCombination combination : list) {
+                sum += combination.getTotal();
+            }
+            assertThat(set.getTotalSum()).isEqualTo(sum);
+        }
+        assertThat(new IVSet().getLowestTotal()).isNull();
+        assertThat(new IVSet().getHighestTotal()).isNull();
+    }
+
+    @Test
+    public void filtersLikeCombinations() {
+        Random random = new Random(3);
+        IVSet all = randomSet(random, 10000);
+        for (int lowest = 0; lowest <= 15; lowest += 3) {
+            IVSet set = new IVSet(all);
+            set.retainHighestStatRange(lowest, lowest + 4);
+            List<IVCombination> expected = new ArrayList<>();
+            for (IVCombination combination : all) {
+                if (combination.getHighestStat() >= lowest && combination.getHighestStat() <= lowest + 4) {
+                    expected.add(combination);
+                }
+            }
+            assertThat(toList(set)).isEqualTo(expected);
+        }
+        for (int lowest = 0; lowest <= 100; lowest += 17) {
+            IVSet set = new IVSet(all);
+            set.retainPercentPerfectRange(lowest, lowest + 20);
+            List<IVCombination> expected = new ArrayList<>();
+            for (IVCombination combination : all) {
+                if (combination.percentPerfect >= lowest && combination.percentPerfect <= lowest + 20) {
+                    expected.add(combination);
+                }
+            }
+            assertThat(toList(set)).isEqualTo(expected);
+        }
+        for (int signature = 1; signature < 8; signature++) {
+            Boolean[] attDefSta = {(signature & 4) != 0, (signature & 2) != 0, (signature & 1) != 0};
+            IVSet set = new IVSet(all);
+            set.retainHighestStatSignature(attDefSta[0], attDefSta[1], attDefSta[2]);
+            List<IVCombination> expected = new ArrayList<>();
+            for (IVCombination combination : all) {
+                if (Arrays.equals(combination.getHighestStatSignature(), attDefSta)) {
+                    expected.add(combination);
+                }
+            }
+            assertThat(toList(set)).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.kamron.pogoiv.logic;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static com.kamron.pogoiv.logic.TestPokedex.formulaCp;
+import static com.kamron.pogoiv.logic.TestPokedex.formulaHp;
+import static com.kamron.pogoiv.logic.TestPokedex.formulaIVs;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LevelIVPossibilitiesTest {
+
+    private static PokeInfoCalculator calculator;
+
+    @BeforeClass
+    public static void loadPokedex() throws Exception {
+        calculator = TestPokedex.load();
+    }
+
+    @Test
+    public void findsLevelsConsistentWithScan() {
+        int[][] sampleIVs = {{0, 0, 0}, {15, 15, 15}, {7, 11, 3}};
+        for (int number = 0; number < calculator.getPokedex().size(); number += 7) {
+            Pokemon pokemon = calculator.get(number);
+            for (int levelIdx = 0; levelIdx < Data.getLevelIdxCount(); levelIdx += 5) {
+                double level = Data.levelIdxToLevel(levelIdx);
+                for (int[] ivs : sampleIVs) {
+                    int hp = formulaHp(pokemon, level, ivs[2]);
+                    int cp = formulaCp(pokemon, level, ivs[0], ivs[1], ivs[2]);
+                    LevelIVPossibilities possibilities = calculator.getIVPossibilitiesAtLevels(pokemon, -1,
+                            Data.getLevelIdxCount(), hp, cp);
+                    for (int otherIdx = 0; otherIdx < Data.getLevelIdxCount(); otherIdx++) {
+                        double otherLevel = Data.levelIdxToLevel(otherIdx);
+                        assertThat(possibilities.getPossibilities(otherLevel))
+                                .containsExactlyElementsOf(formulaIVs(pokemon, otherLevel, hp, cp));
+                    }
+                    assertThat(possibilities.getLevels()).contains(level);
+                    assertThat(possibilities.getConsistentLevel(level).get()).isEqualTo(level);
+                }
+            }
+        }
+    }
+}
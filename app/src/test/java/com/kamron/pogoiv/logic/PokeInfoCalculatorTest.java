@@ -0,0 +1,90 @@
+package com.kamron.pogoiv.logic;
+
+import com.google.common.base.Optional;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.kamron.pogoiv.logic.TestPokedex.formulaCp;
+import static com.kamron.pogoiv.logic.TestPokedex.formulaHp;
+import static com.kamron.pogoiv.logic.TestPokedex.formulaIVs;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PokeInfoCalculatorTest {
+
+    private static PokeInfoCalculator calculator;
+
+    @BeforeClass
+    public static void loadPokedex() throws Exception {
+        calculator = TestPokedex.load();
+    }
+
+    @Test
+    public void solvesFromPartialInputs() {
+        Pokemon pokemon = calculator.get(0);
+        double level = 20;
+        int cp = formulaCp(pokemon, level, 7, 11, 3);
+        int hp = formulaHp(pokemon, level, 3);
+
+        List<IVCombination> cpOnly = new ArrayList<>();
+        for (int sta = 0; sta < 16; sta++) {
+            for (IVCombination combination : formulaIVs(pokemon, level, formulaHp(pokemon, level, sta), cp)) {
+                if (!cpOnly.contains(combination)) {
+                    cpOnly.add(combination);
+                }
+            }
+        }
+        IVScanResult result = calculator.getIVPossibilities(pokemon, level, 0, Integer.MAX_VALUE, Optional.of(cp));
+        assertThat(result.usedInputs).isEqualTo(IVScanResult.Inputs.CP_ONLY);
+        assertThat(result.iVCombinations).containsExactlyElementsOf(cpOnly);
+
+        result = calculator.getIVPossibilities(pokemon, level, hp, Integer.MAX_VALUE, Optional.of(cp));
+        assertThat(result.usedInputs).isEqualTo(IVScanResult.Inputs.CP_AND_HP_RANGE);
+        for (IVCombination combination : result.iVCombinations) {
+            assertThat(formulaHp(pokemon, level, combination.sta)).isGreaterThanOrEqualTo(hp);
+        }
+        assertThat(result.iVCombinations.contains(7, 11, 3)).isTrue();
+
+        result = calculator.getIVPossibilities(pokemon, level, hp, hp, Optional.<Integer>absent());
+        assertThat(result.usedInputs).isEqualTo(IVScanResult.Inputs.HP_ONLY);
+        int staminaIVs = 0;
+        for (int sta = 0; sta < 16; sta++) {
+            if (formulaHp(pokemon, level, sta) == hp) {
+                staminaIVs++;
+            }
+        }
+        assertThat(result.getCount()).isEqualTo(256 * staminaIVs);
+        assertThat(result.scannedHP).isEqualTo(hp);
+    }
+
+    @Test
+    public void indexesEvolutionChains() {
+        for (Pokemon poke : calculator.getPokedex()) {
+            Pokemon lowest = poke;
+            while (lowest.devoNumber >= 0) {
+                lowest = calculator.get(lowest.devoNumber);
+            }
+            List<Pokemon> line = calculator.getEvolutionLine(poke);
+            assertThat(line.get(0)).isSameAs(lowest);
+            assertThat(line).contains(poke);
+            assertThat(calculator.getLowestEvolution(poke)).isSameAs(lowest);
+            assertThat(calculator.getLastEvolution(poke))
+                    .isSameAs(poke.evolutions.isEmpty() ? poke : line.get(line.size() - 1));
+
+            for (Pokemon other : calculator.getPokedex()) {
+                assertThat(calculator.isInSameEvolutionChain(poke, other)).isEqualTo(line.contains(other));
+                int cost = 0;
+                Pokemon devolution = other;
+                while (devolution != poke && devolution.devoNumber >= 0) {
+                    devolution = calculator.get(devolution.devoNumber);
+                    cost += devolution.candyEvolutionCost;
+                }
+                int expected = devolution == poke && other != poke ? cost : 0;
+                assertThat(calculator.getCandyCostForEvolution(poke, other)).isEqualTo(expected);
+            }
+        }
+    }
+}
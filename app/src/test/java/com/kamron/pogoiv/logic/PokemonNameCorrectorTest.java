@@ -0,0 +1,130 @@
+package com.kamron.pogoiv.logic;
+
+import com.google.common.base.Optional;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PokemonNameCorrectorTest {
+
+    private static PokeInfoCalculator calculator;
+
+    @BeforeClass
+    public static void loadPokedex() throws Exception {
+        calculator = TestPokedex.load();
+    }
+
+    @Test
+    public void learnsUserCorrections() {
+        PokemonNameCorrector corrector = new PokemonNameCorrector(calculator);
+        Pokemon pidgey = calculator.get(15);
+        assertThat(corrector.putUserCorrection(pidgey.name, "candy", pidgey)).isFalse();
+        assertThat(corrector.putUserCorrection("Birdie", "candy", pidgey)).isTrue();
+        assertThat(corrector.putUserCorrection("Birdie", "candy", pidgey)).isFalse();
+
+        PokemonNameCorrector.PokeDist guess = corrector.getPossiblePokemon("Birdie", "candy",
+                Optional.<Integer>absent());
+        assertThat(guess.pokemon).isSameAs(pidgey);
+        assertThat(guess.dist).isEqualTo(0);
+        assertThat(corrector.getPossiblePokemon("Birdie", "other candy", Optional.<Integer>absent()).pokemon)
+                .isNotSameAs(pidgey);
+    }
+
+    @Test
+    public void loadsStoredUserCorrections() {
+        Map<String, Object> stored = new HashMap<>();
+        new PokemonNameCorrector(calculator, stored, new MapStore(stored))
+                .putUserCorrection("Birdie", null, calculator.get(16));
+        stored.put(PokemonNameCorrector.getUserCorrectionKey("Ghost", "candy"), 1000L);
+        stored.put("appraisalWindowPosition", 300);
+        PokemonNameCorrector corrector = new PokemonNameCorrector(calculator, stored, new MapStore(stored));
+
+        assertThat(corrector.getPossiblePokemon("Birdie", null, Optional.<Integer>absent()).pokemon)
+                .isSameAs(calculator.get(16));
+        assertThat(corrector.getPossiblePokemon("Ghost", "candy", Optional.<Integer>absent()).pokemon).isNotNull();
+    }
+
+    @Test
+    public void dropsTheOldestUserCorrections() {
+        Map<String, Object> stored = new HashMap<>();
+        PokemonNameCorrector corrector = new PokemonNameCorrector(calculator, stored, new MapStore(stored));
+        Pokemon pidgey = calculator.get(15);
+        for (int i = 0; i <= PokemonNameCorrector.MAX_USER_CORRECTIONS; i++) {
+            assertThat(corrector.putUserCorrection("Birdie" + i, "candy", pidgey)).isTrue();
+        }
+        //Correcting the first one again makes it the newest.
+        assertThat(corrector.putUserCorrection("Birdie1", "candy", calculator.get(16))).isTrue();
+        assertThat(corrector.putUserCorrection("Birdie", "candy", pidgey)).isTrue();
+
+        assertThat(stored).hasSize(PokemonNameCorrector.MAX_USER_CORRECTIONS)
+                .doesNotContainKeys(PokemonNameCorrector.getUserCorrectionKey("Birdie0", "candy"),
+                        PokemonNameCorrector.getUserCorrectionKey("Birdie2", "candy"));
+        PokemonNameCorrector reloaded = new PokemonNameCorrector(calculator, stored, new MapStore(stored));
+        for (PokemonNameCorrector loaded : Arrays.asList(corrector, reloaded)) {
+            assertThat(loaded.getPossiblePokemon("Birdie0", "candy", Optional.<Integer>absent()).dist)
+                    .isGreaterThan(0);
+            assertThat(loaded.getPossiblePokemon("Birdie1", "candy", Optional.<Integer>absent()).pokemon)
+                    .isSameAs(calculator.get(16));
+            assertThat(loaded.getPossiblePokemon("Birdie3", "candy", Optional.<Integer>absent()).pokemon)
+                    .isSameAs(pidgey);
+        }
+
+        //A store holding more than the cap, like one written with a higher cap, is trimmed when it's loaded.
+        stored.put(PokemonNameCorrector.getUserCorrectionKey("Birdie0", "candy"), 15L);
+        new PokemonNameCorrector(calculator, stored, new MapStore(stored));
+        assertThat(stored).hasSize(PokemonNameCorrector.MAX_USER_CORRECTIONS)
+                .doesNotContainKey(PokemonNameCorrector.getUserCorrectionKey("Birdie0", "candy"));
+    }
+
+    @Test
+    public void dropsCandidatesWhichCantHaveTheScannedStats() throws Exception {
+        PokemonNameCorrector corrector = new PokemonNameCorrector(calculator);
+        Pokemon bulbasaur = calculator.get(0);
+        Pokemon ivysaur = calculator.get(1);
+        List<PokemonNameCorrector.PokeDist> candidates = corrector.getPossiblePokemons(ivysaur.name, bulbasaur.name,
+                Optional.<Integer>absent(), 3);
+        assertThat(candidates).hasSize(3);
+        assertThat(candidates.get(0).pokemon).isSameAs(ivysaur);
+
+        //Stats only a bulbasaur can have, since an ivysaur of the same level is always stronger.
+        int hp = calculator.getStatTable(bulbasaur).getHp(Data.levelToLevelIdx(20), 15);
+        int cp = calculator.getStatTable(bulbasaur).getCp(Data.levelToLevelIdx(20), 0, 0, 15);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<PokemonNameCorrector.PokeDist> feasible = calculator.getFeasibleCandidates(candidates, 20, hp, cp,
+                    executor);
+            assertThat(feasible).isNotEmpty();
+            assertThat(feasible.get(0).pokemon).isSameAs(bulbasaur);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * A store of user corrections in a map, like the preferences file the app uses.
+     */
+    private static class MapStore implements PokemonNameCorrector.UserCorrectionStore {
+        private final Map<String, Object> map;
+
+        MapStore(Map<String, Object> map) {
+            this.map = map;
+        }
+
+        @Override public void put(String key, long value) {
+            map.put(key, value);
+        }
+
+        @Override public void remove(String key) {
+            map.remove(key);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.kamron.pogoiv.logic;
+
+import com.kamron.pogoiv.logic.PokemonNameCorrector.PokeDist;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the name index finds the same closest pokemon as comparing the text with every name.
+ */
+public class PokemonNameIndexTest {
+
+    private static String[] englishNames;
+    private static String[] germanNames;
+    private static List<Pokemon> pokedex = new ArrayList<>();
+    private static PokemonNameIndex index = new PokemonNameIndex();
+
+    @BeforeClass
+    public static void loadNames() throws Exception {
+        englishNames = readNames(new File("src/main/res/values/pokemons.xml"));
+        germanNames = readNames(new File("src/main/res/values-de/pokemons.xml"));
+        for (int i = 0; i < englishNames.length; i++) {
+            Pokemon pokemon = new Pokemon(englishNames[i], englishNames[i], i, 1, 1, 1, -1, 0);
+            pokedex.add(pokemon);
+            index.add(englishNames[i], pokemon);
+            index.add(germanNames[i], pokemon);
+        }
+    }
+
+    private static String[] readNames(File file) throws Exception {
+        String xml = new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"));
+        Matcher array = Pattern.compile("<string-array name=\"pokemon\">(.*?)</string-array>", Pattern.DOTALL)
+                .matcher(xml);
+        assertThat(array.find()).isTrue();
+        Matcher item = Pattern.compile("<item>(.*?)</item>").matcher(array.group(1));
+        List<String> names = new ArrayList<>();
+        while (item.find()) {
+            names.add(item.group(1).replace("\\'", "'"));
+        }
+        return names.toArray(new String[names.size()]);
+    }
+
+    @Test
+    public void findsExactNames() {
+        for (int i = 0; i < englishNames.length; i++) {
+            List<PokeDist> closest = index.getClosest(germanNames[i].toUpperCase(), 1);
+            assertThat(closest).hasSize(1);
+            assertThat(closest.get(0).dist).isEqualTo(0);
+            assertThat(germanNames[closest.get(0).pokemon.number]).isEqualToIgnoringCase(germanNames[i]);
+        }
+    }
+
+    @Test
+    public void matchesLinearSearch() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            String name = englishNames[random.nextInt(englishNames.length)];
+            StringBuilder text = new StringBuilder(name);
+            //Garble the name like a bad scan or a nickname would.
+            for (int edits = random.nextInt(5); edits > 0 && text.length() > 0; edits--) {
+                int position = random.nextInt(text.length());
+                if (random.nextBoolean()) {
+                    text.setCharAt(position, (char) ('a' + random.nextInt(26)));
+                } else {
+                    text.deleteCharAt(position);
+                }
+            }
+            int count = 1 + random.nextInt(5);
+
+            List<PokeDist> closest = index.getClosest(text.toString(), count);
+            List<PokeDist> expected = getClosestLinearly(text.toString().toLowerCase(), count);
+            assertThat(closest).hasSize(expected.size());
+            for (int j = 0; j < expected.size(); j++) {
+                assertThat(closest.get(j).pokemon).as(text.toString()).isSameAs(expected.get(j).pokemon);
+                assertThat(closest.get(j).dist).isEqualTo(expected.get(j).dist);
+            }
+        }
+    }
+
+    private static List<PokeDist> getClosestLinearly(String text, int count) {
+        List<PokeDist> all = new ArrayList<>();
+        for (Pokemon pokemon : pokedex) {
+            int dist = Math.min(Data.levenshteinDistance(englishNames[pokemon.number].toLowerCase(), text),
+                    Data.levenshteinDistance(germanNames[pokemon.number].toLowerCase(), text));
+            //The pokedex is in number order, so a stable insertion keeps ties ordered by number.
+            int position = all.size();
+            while (position > 0 && all.get(position - 1).dist > dist) {
+                position--;
+            }
+            all.add(position, new PokeDist(pokemon, dist));
+        }
+        return all.subList(0, Math.min(count, all.size()));
+    }
+}
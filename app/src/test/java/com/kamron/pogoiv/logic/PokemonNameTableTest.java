@@ -0,0 +1,34 @@
+package com.kamron.pogoiv.logic;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PokemonNameTableTest {
+
+    private static InputStream toStream(String table) {
+        return new ByteArrayInputStream(table.getBytes(Charset.forName("UTF-8")));
+    }
+
+    @Test
+    public void readsNamesByLanguage() throws Exception {
+        PokemonNameTable table = PokemonNameTable.read(toStream(
+                "en\tde\tzh-TW\nBulbasaur\tBisasam\t妙蛙種子\nNidoran♀\tNidoran♀\t尼多蘭\n"));
+
+        assertThat(table.getLanguages()).containsExactly("en", "de", "zh-TW");
+        assertThat(table.getNames("de")).containsExactly("Bisasam", "Nidoran♀");
+        assertThat(table.getNames("zh-TW")).containsExactly("妙蛙種子", "尼多蘭");
+        assertThat(table.getNames("fr")).isNull();
+        assertThat(table.getAllNames()[0]).containsExactly("Bulbasaur", "Nidoran♀");
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMissingNames() throws Exception {
+        PokemonNameTable.read(toStream("en\tde\nBulbasaur\n"));
+    }
+}
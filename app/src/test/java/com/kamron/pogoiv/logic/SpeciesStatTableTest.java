@@ -0,0 +1,69 @@
+package com.kamron.pogoiv.logic;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static com.kamron.pogoiv.logic.TestPokedex.formulaCp;
+import static com.kamron.pogoiv.logic.TestPokedex.formulaHp;
+import static com.kamron.pogoiv.logic.TestPokedex.formulaIVs;
+import static com.kamron.pogoiv.logic.TestPokedex.formulaRangeCp;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the stat tables give bit-identical results to the formulas they replaced, for the whole pokedex at
+ * every level.
+ */
+public class SpeciesStatTableTest {
+
+    private static PokeInfoCalculator calculator;
+
+    @BeforeClass
+    public static void loadPokedex() throws Exception {
+        calculator = TestPokedex.load();
+    }
+
+    @Test
+    public void matchesFormulasForWholePokedex() {
+        assertThat(calculator.getPokedex()).isNotEmpty();
+        for (int number = 0; number < calculator.getPokedex().size(); number++) {
+            Pokemon pokemon = calculator.get(number);
+            SpeciesStatTable table = calculator.getStatTable(pokemon);
+            for (int levelIdx = 0; levelIdx < Data.getLevelIdxCount(); levelIdx++) {
+                double level = Data.levelIdxToLevel(levelIdx);
+                int[] cpTable = table.getCpTable(levelIdx);
+                for (int sta = 0; sta < 16; sta++) {
+                    assertThat(table.getHp(levelIdx, sta)).isEqualTo(formulaHp(pokemon, level, sta));
+                    for (int def = 0; def < 16; def++) {
+                        for (int att = 0; att < 16; att++) {
+                            int cp = formulaCp(pokemon, level, att, def, sta);
+                            if (table.getCp(levelIdx, att, def, sta) != cp
+                                    || cpTable[SpeciesStatTable.ivIndex(att, def, sta)] != cp
+                                    || table.getRangeCp(levelIdx, att, def, sta)
+                                    != formulaRangeCp(pokemon, level, att, def, sta)) {
+                                throw new AssertionError("Mismatch for pokemon " + number + " at level " + level
+                                        + " with IVs " + att + "/" + def + "/" + sta);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void findsSameIVsAsFormulas() {
+        int[][] sampleIVs = {{0, 0, 0}, {15, 15, 15}, {7, 11, 3}, {12, 2, 9}};
+        for (int number = 0; number < calculator.getPokedex().size(); number++) {
+            Pokemon pokemon = calculator.get(number);
+            for (int levelIdx = 0; levelIdx < Data.getLevelIdxCount(); levelIdx++) {
+                double level = Data.levelIdxToLevel(levelIdx);
+                for (int[] ivs : sampleIVs) {
+                    int hp = formulaHp(pokemon, level, ivs[2]);
+                    int cp = formulaCp(pokemon, level, ivs[0], ivs[1], ivs[2]);
+                    IVScanResult result = calculator.getIVPossibilities(pokemon, level, hp, cp);
+                    assertThat(result.iVCombinations).containsExactlyElementsOf(formulaIVs(pokemon, level, hp, cp));
+                }
+            }
+        }
+    }
+}
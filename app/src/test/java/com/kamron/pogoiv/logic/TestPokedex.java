@@ -0,0 +1,108 @@
+package com.kamron.pogoiv.logic;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The pokedex of the app, read from its resources, shared by the tests which need real pokemon. Also holds the stat
+ * formulas the tables and the IV calculations are checked against.
+ */
+final class TestPokedex {
+
+    private static final File INTEGERS_XML = new File("src/main/res/values/integers.xml");
+
+    private static PokeInfoCalculator calculator;
+
+    private TestPokedex() {
+    }
+
+    /**
+     * Loads the pokedex into the calculator singleton, the first time it's called. The pokemon are named after their
+     * number, like "pokemon15".
+     *
+     * @return The calculator holding the pokedex.
+     * @throws IOException if the resources can't be read.
+     */
+    static synchronized PokeInfoCalculator load() throws IOException {
+        if (calculator == null) {
+            String xml = new String(Files.readAllBytes(INTEGERS_XML.toPath()), Charset.forName("UTF-8"));
+            int[] attack = readIntegerArray(xml, "attack");
+            int[] defense = readIntegerArray(xml, "defense");
+            int[] stamina = readIntegerArray(xml, "stamina");
+            int[] devolution = readIntegerArray(xml, "devolutionNumber");
+            int[] evolutionCandyCost = readIntegerArray(xml, "evolutionCandyCost");
+            String[] names = new String[attack.length];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = "pokemon" + i;
+            }
+            calculator = PokeInfoCalculator.getInstance(names, names, attack, defense, stamina, devolution,
+                    evolutionCandyCost);
+        }
+        return calculator;
+    }
+
+    private static int[] readIntegerArray(String xml, String name) {
+        Matcher array = Pattern.compile("<integer-array name=\"" + name + "\">(.*?)</integer-array>", Pattern.DOTALL)
+                .matcher(xml);
+        assertThat(array.find()).isTrue();
+        Matcher item = Pattern.compile("<item>\\s*(-?\\d+)\\s*</item>").matcher(array.group(1));
+        List<Integer> values = new ArrayList<>();
+        while (item.find()) {
+            values.add(Integer.parseInt(item.group(1)));
+        }
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    static int formulaHp(Pokemon pokemon, double level, int staminaIV) {
+        double lvlScalar = Data.getLevelCpM(level);
+        return (int) Math.max(Math.floor((pokemon.baseStamina + staminaIV) * lvlScalar), 10);
+    }
+
+    static int formulaCp(Pokemon pokemon, double level, int attackIV, int defenseIV, int staminaIV) {
+        double lvlScalar = Data.getLevelCpM(level);
+        double lvlScalarPow2 = Math.pow(lvlScalar, 2) * 0.1;
+        double lvlScalarStamina = Math.sqrt(pokemon.baseStamina + staminaIV) * lvlScalarPow2;
+        return Math.max(10, (int) Math.floor((pokemon.baseAttack + attackIV) * Math.sqrt(pokemon.baseDefense
+                + defenseIV) * lvlScalarStamina));
+    }
+
+    static int formulaRangeCp(Pokemon pokemon, double level, int attackIV, int defenseIV, int staminaIV) {
+        double lvlScalar = Data.getLevelCpM(level);
+        return (int) Math.floor((pokemon.baseAttack + attackIV) * Math.sqrt(pokemon.baseDefense + defenseIV)
+                * Math.sqrt(pokemon.baseStamina + staminaIV) * Math.pow(lvlScalar, 2) * 0.1);
+    }
+
+    /**
+     * Finds the IV combinations giving a hp and cp with the formulas, in the order of the IV calculations.
+     */
+    static List<IVCombination> formulaIVs(Pokemon pokemon, double level, int pokemonHP, int pokemonCP) {
+        List<IVCombination> ivs = new ArrayList<>();
+        for (int sta = 0; sta < 16; sta++) {
+            int hp = formulaHp(pokemon, level, sta);
+            if (hp == pokemonHP) {
+                for (int def = 0; def < 16; def++) {
+                    for (int att = 0; att < 16; att++) {
+                        if (formulaCp(pokemon, level, att, def, sta) == pokemonCP) {
+                            ivs.add(new IVCombination(att, def, sta));
+                        }
+                    }
+                }
+            } else if (hp > pokemonHP) {
+                break;
+            }
+        }
+        return ivs;
+    }
+}
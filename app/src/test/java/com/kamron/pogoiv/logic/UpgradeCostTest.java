@@ -0,0 +1,63 @@
+package com.kamron.pogoiv.logic;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UpgradeCostTest {
+
+    /**
+     * The stardust and candy cost of the power up from a level, as they used to be computed.
+     */
+    private static int[] formulaPowerUpCost(double level) {
+        int rank = 5;
+        if ((level % 10) >= 1 && (level % 10) <= 2.5) {
+            rank = 1;
+        } else if ((level % 10) > 2.5 && (level % 10) <= 4.5) {
+            rank = 2;
+        } else if ((level % 10) > 4.5 && (level % 10) <= 6.5) {
+            rank = 3;
+        } else if ((level % 10) > 6.5 && (level % 10) <= 8.5) {
+            rank = 4;
+        }
+        if (level <= 10.5) {
+            return new int[]{rank * 200, 1};
+        } else if (level <= 20.5) {
+            return new int[]{1000 + rank * 300, 2};
+        } else if (level <= 25.5) {
+            return new int[]{2500 + rank * 500, 3};
+        } else if (level <= 30.5) {
+            return new int[]{2500 + rank * 500, 4};
+        } else if (level <= 32.5) {
+            return new int[]{5000 + rank * 1000, 6};
+        } else if (level <= 34.5) {
+            return new int[]{5000 + rank * 1000, 8};
+        } else if (level <= 36.5) {
+            return new int[]{5000 + rank * 1000, 10};
+        } else if (level <= 38.5) {
+            return new int[]{5000 + rank * 1000, 12};
+        }
+        return new int[]{5000 + rank * 1000, 15};
+    }
+
+    @Test
+    public void matchesFormulasBetweenAllLevels() {
+        for (int from = 0; from < Data.getLevelIdxCount(); from++) {
+            int dust = 0;
+            int candy = 0;
+            for (int to = from; to < Data.getLevelIdxCount(); to++) {
+                assertThat(Data.getPowerUpStardustCost(from, to)).isEqualTo(dust);
+                assertThat(Data.getPowerUpCandyCost(from, to)).isEqualTo(candy);
+                int[] cost = formulaPowerUpCost(Data.levelIdxToLevel(to));
+                dust += cost[0];
+                candy += cost[1];
+            }
+        }
+    }
+
+    @Test
+    public void costsNothingToGoDown() {
+        assertThat(Data.getPowerUpStardustCost(40, 10)).isEqualTo(0);
+        assertThat(Data.getPowerUpCandyCost(40, 10)).isEqualTo(0);
+    }
+}
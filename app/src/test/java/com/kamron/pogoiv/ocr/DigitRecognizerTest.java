@@ -0,0 +1,100 @@
+package com.kamron.pogoiv.ocr;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DigitRecognizerTest {
+
+    @Test
+    public void segmentsOneGlyphPerCharacter() {
+        List<Glyph> glyphs = GlyphRenderer.render("123/45", 2);
+        assertThat(glyphs).hasSize(6);
+        assertThat(glyphs.get(0).left).isLessThan(glyphs.get(1).left);
+        assertThat(glyphs.get(0).height).isEqualTo(14);
+    }
+
+    @Test
+    public void segmentsNothingInBlankStrip() {
+        assertThat(GlyphRenderer.render("", 2)).isEmpty();
+    }
+
+    @Test
+    public void recognizesNothingBeforeLearning() {
+        DigitRecognizer recognizer = new DigitRecognizer();
+        assertThat(recognizer.recognize(GlyphRenderer.render("42", 2)).isPresent()).isFalse();
+    }
+
+    @Test
+    public void recognizesLearnedGlyphsAtAnotherSize() {
+        DigitRecognizer recognizer = new DigitRecognizer();
+        assertThat(recognizer.learn(GlyphRenderer.render("0123456789/", 2), "0123 4567 89 /")).isTrue();
+        assertThat(recognizer.learn(GlyphRenderer.render("0123456789/", 2), "0123456789/")).isTrue();
+
+        assertThat(recognizer.recognize(GlyphRenderer.render("31/975", 3)).get()).isEqualTo("31/975");
+        assertThat(recognizer.recognize(GlyphRenderer.render("2048", 4)).get()).isEqualTo("2048");
+    }
+
+    @Test
+    public void doesNotRecognizeUnknownGlyphs() {
+        DigitRecognizer recognizer = new DigitRecognizer();
+        recognizer.learn(GlyphRenderer.render("0123", 2), "0123");
+        recognizer.learn(GlyphRenderer.render("0123", 2), "0123");
+        assertThat(recognizer.recognize(GlyphRenderer.render("017", 2)).isPresent()).isFalse();
+    }
+
+    @Test
+    public void doesNotLearnMisalignedText() {
+        DigitRecognizer recognizer = new DigitRecognizer();
+        assertThat(recognizer.learn(GlyphRenderer.render("12", 2), "123")).isFalse();
+        assertThat(recognizer.recognize(GlyphRenderer.render("12", 2)).isPresent()).isFalse();
+    }
+
+    @Test
+    public void recognizesGlyphsOnlyOnceTwoReadsAgree() {
+        DigitRecognizer recognizer = new DigitRecognizer();
+        recognizer.learn(GlyphRenderer.render("42", 2), "42");
+        assertThat(recognizer.recognize(GlyphRenderer.render("42", 2)).isPresent()).isFalse();
+
+        recognizer.learn(GlyphRenderer.render("42", 2), "42");
+        assertThat(recognizer.recognize(GlyphRenderer.render("24", 2)).get()).isEqualTo("24");
+    }
+
+    @Test
+    public void forgetsGlyphsReadDifferently() {
+        DigitRecognizer recognizer = new DigitRecognizer();
+        recognizer.learn(GlyphRenderer.render("7", 2), "1");
+        recognizer.learn(GlyphRenderer.render("7", 2), "7");
+        //The first read was forgotten, so this one doesn't confirm it.
+        recognizer.learn(GlyphRenderer.render("7", 2), "1");
+        assertThat(recognizer.knows('1')).isFalse();
+        assertThat(recognizer.knows('7')).isFalse();
+        assertThat(recognizer.recognize(GlyphRenderer.render("7", 2)).isPresent()).isFalse();
+    }
+
+    @Test
+    public void recognizesSavedTemplates() throws IOException {
+        DigitRecognizer recognizer = new DigitRecognizer();
+        recognizer.learn(GlyphRenderer.render("0123456789", 2), "0123456789");
+        recognizer.learn(GlyphRenderer.render("0123456789", 2), "0123456789");
+        recognizer.learn(GlyphRenderer.render("/", 2), "/");
+        ByteArrayOutputStream saved = new ByteArrayOutputStream();
+        recognizer.writeTo(saved);
+
+        DigitRecognizer restored = new DigitRecognizer();
+        restored.readFrom(new ByteArrayInputStream(saved.toByteArray()));
+        assertThat(restored.recognize(GlyphRenderer.render("2048", 3)).get()).isEqualTo("2048");
+        //The unconfirmed templates aren't saved.
+        assertThat(restored.knows('/')).isFalse();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        new DigitRecognizer().readFrom(new ByteArrayInputStream(new byte[] {'G', 'O', 'I', 'V', 0, 0, 0, 1}));
+    }
+}
@@ -0,0 +1,87 @@
+package com.kamron.pogoiv.ocr;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EvolutionCostClassifierTest {
+
+    private static final int[] COSTS = {25, 100, -1, 12, 50, 400, 12, 50, -1, 25};
+
+    private DigitRecognizer recognizer;
+    private EvolutionCostClassifier classifier;
+
+    @Before
+    public void setUp() {
+        recognizer = new DigitRecognizer();
+        classifier = new EvolutionCostClassifier(COSTS, recognizer);
+    }
+
+    @Test
+    public void classifiesNothingWithoutTemplates() {
+        assertThat(classifier.classify(GlyphRenderer.render("12", 2)).isPresent()).isFalse();
+        assertThat(classifier.classify(GlyphRenderer.render("1", 2)).isPresent()).isFalse();
+    }
+
+    @Test
+    public void classifiesNothingBeforeLearningDigits() {
+        learnConfirmed("12");
+        assertThat(classifier.classify(GlyphRenderer.render("12", 2)).isPresent()).isFalse();
+    }
+
+    @Test
+    public void classifiesFullyVisibleCosts() {
+        learnConfirmed("0123456789");
+        assertThat(classifier.classify(GlyphRenderer.render("12", 2)).get()).isEqualTo(12);
+        assertThat(classifier.classify(GlyphRenderer.render("400", 2)).get()).isEqualTo(400);
+    }
+
+    @Test
+    public void classifiesPartiallyCoveredCosts() {
+        learnConfirmed("0123456789");
+        assertThat(classifier.classify(GlyphRenderer.render("1", 2)).get()).isEqualTo(100);
+        assertThat(classifier.classify(GlyphRenderer.render("10", 2)).get()).isEqualTo(100);
+        assertThat(classifier.classify(GlyphRenderer.render("40", 2)).get()).isEqualTo(400);
+        assertThat(classifier.classify(GlyphRenderer.render("5", 2)).get()).isEqualTo(50);
+        assertThat(classifier.classify(GlyphRenderer.render("2", 2)).get()).isEqualTo(25);
+    }
+
+    @Test
+    public void rejectsImpossibleCosts() {
+        learnConfirmed("0123456789");
+        assertThat(classifier.classify(GlyphRenderer.render("1234", 2)).isPresent()).isFalse();
+    }
+
+    @Test
+    public void matchesCoveredReadings() {
+        assertThat(EvolutionCostClassifier.couldBeCoveredReadingOf(100, 12)).isTrue();
+        assertThat(EvolutionCostClassifier.couldBeCoveredReadingOf(50, 25)).isFalse();
+        assertThat(EvolutionCostClassifier.couldBeCoveredReadingOf(100, -1)).isFalse();
+    }
+
+    @Test
+    public void completesCoveredTesseractReadings() {
+        assertThat(EvolutionCostClassifier.correctCoveredReading(1)).isEqualTo(100);
+        assertThat(EvolutionCostClassifier.correctCoveredReading(10)).isEqualTo(100);
+        assertThat(EvolutionCostClassifier.correctCoveredReading(4)).isEqualTo(400);
+        assertThat(EvolutionCostClassifier.correctCoveredReading(40)).isEqualTo(400);
+        assertThat(EvolutionCostClassifier.correctCoveredReading(5)).isEqualTo(50);
+        assertThat(EvolutionCostClassifier.correctCoveredReading(2)).isEqualTo(25);
+    }
+
+    @Test
+    public void keepsFullTesseractReadings() {
+        for (int cost : new int[] {12, 25, 50, 100, 400}) {
+            assertThat(EvolutionCostClassifier.correctCoveredReading(cost)).isEqualTo(cost);
+        }
+    }
+
+    /**
+     * Teaches the recognizer a text read twice, since it only trusts glyphs two reads agree on.
+     */
+    private void learnConfirmed(String text) {
+        recognizer.learn(GlyphRenderer.render(text, 2), text);
+        recognizer.learn(GlyphRenderer.render(text, 2), text);
+    }
+}
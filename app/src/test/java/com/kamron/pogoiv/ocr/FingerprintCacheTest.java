@@ -0,0 +1,64 @@
+package com.kamron.pogoiv.ocr;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FingerprintCacheTest {
+
+    @Test
+    public void countsHitsAndMisses() {
+        FingerprintCache<String> cache = new FingerprintCache<>(4);
+        assertThat(cache.get(42)).isNull();
+        cache.put(42, "Pidgey");
+        assertThat(cache.get(42)).isEqualTo("Pidgey");
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void storesZeroFingerprint() {
+        FingerprintCache<String> cache = new FingerprintCache<>(4);
+        cache.put(0, "Rattata");
+        assertThat(cache.get(0)).isEqualTo("Rattata");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void evictsEntriesNotReadRecently() {
+        FingerprintCache<Integer> cache = new FingerprintCache<>(3);
+        cache.put(1, 1);
+        cache.put(2, 2);
+        cache.put(3, 3);
+        cache.get(1);
+        cache.put(4, 4);
+
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get(1)).isEqualTo(1);
+        assertThat(cache.get(4)).isEqualTo(4);
+    }
+
+    @Test
+    public void findsEntriesAfterManyEvictions() {
+        FingerprintCache<Long> cache = new FingerprintCache<>(50);
+        for (long i = 0; i < 1000; i++) {
+            //Spread over few home slots, to get long probe sequences.
+            long fingerprint = (i % 7) | (i << 40);
+            cache.put(fingerprint, i);
+            assertThat(cache.get(fingerprint)).isEqualTo(i);
+        }
+        assertThat(cache.size()).isEqualTo(50);
+        assertThat(cache.getEvictionCount()).isEqualTo(950);
+        //Every entry left in the cache must still be reachable.
+        int found = 0;
+        for (long i = 0; i < 1000; i++) {
+            long fingerprint = (i % 7) | (i << 40);
+            if (cache.get(fingerprint) != null) {
+                assertThat(cache.get(fingerprint)).isEqualTo(i);
+                found++;
+            }
+        }
+        assertThat(found).isEqualTo(50);
+    }
+}
@@ -0,0 +1,50 @@
+package com.kamron.pogoiv.ocr;
+
+import java.util.List;
+
+/**
+ * Draws text with a tiny pixel font, to test the glyph recognition without screenshots of the game.
+ */
+class GlyphRenderer {
+    private static final String DIGITS = "0123456789/";
+    private static final String[][] FONT = {
+            {".###.", "#...#", "#..##", "#.#.#", "##..#", "#...#", ".###."},
+            {"..#..", ".##..", "..#..", "..#..", "..#..", "..#..", ".###."},
+            {".###.", "#...#", "....#", "...#.", "..#..", ".#...", "#####"},
+            {"####.", "....#", "....#", ".###.", "....#", "....#", "####."},
+            {"...#.", "..##.", ".#.#.", "#..#.", "#####", "...#.", "...#."},
+            {"#####", "#....", "####.", "....#", "....#", "#...#", ".###."},
+            {".###.", "#....", "#....", "####.", "#...#", "#...#", ".###."},
+            {"#####", "....#", "...#.", "..#..", ".#...", ".#...", ".#..."},
+            {".###.", "#...#", "#...#", ".###.", "#...#", "#...#", ".###."},
+            {".###.", "#...#", "#...#", ".####", "....#", "....#", ".###."},
+            {"....#", "...#.", "...#.", "..#..", ".#...", ".#...", "#...."},
+    };
+
+    /**
+     * Draws text with the test font in a new strip of the atlas, scale pixels per font pixel, and returns its glyphs.
+     */
+    static List<Glyph> render(String text, int scale) {
+        int width = (text.length() * 7 + 2) * scale;
+        int height = 11 * scale;
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xffffffff;
+        }
+        for (int c = 0; c < text.length(); c++) {
+            String[] rows = FONT[DIGITS.indexOf(text.charAt(c))];
+            for (int y = 0; y < rows.length * scale; y++) {
+                for (int x = 0; x < rows[0].length() * scale; x++) {
+                    if (rows[y / scale].charAt(x / scale) == '#') {
+                        pixels[((2 + y) * width) + (c * 7 + 2) * scale + x] = 0xff000000;
+                    }
+                }
+            }
+        }
+        BinaryAtlas atlas = new BinaryAtlas();
+        atlas.reset(width);
+        BinaryAtlas.Strip strip = atlas.addStrip(new PixelRegion(pixels, 0, width, width, height));
+        atlas.binarize(strip, 0, 0, 0, 100, false);
+        return GlyphSegmenter.segment(atlas, strip);
+    }
+}
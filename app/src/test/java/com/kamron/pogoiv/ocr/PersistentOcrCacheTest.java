@@ -0,0 +1,77 @@
+package com.kamron.pogoiv.ocr;
+
+import com.google.common.base.Optional;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersistentOcrCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsValuesAcrossSessions() throws Exception {
+        File file = new File(folder.getRoot(), "cache");
+        PersistentOcrCache cache = new PersistentOcrCache(file, 64);
+        cache.storeText(PersistentOcrCache.FIELD_NAME, 42, "Nidoran♀");
+        cache.storeNumber(PersistentOcrCache.FIELD_HP, 42, Optional.of(55));
+        cache.storeNumber(PersistentOcrCache.FIELD_CANDY_AMOUNT, 42, Optional.<Integer>absent());
+        cache.close();
+
+        cache = new PersistentOcrCache(file, 64);
+        assertThat(cache.loadText(PersistentOcrCache.FIELD_NAME, 42)).isEqualTo("Nidoran♀");
+        assertThat(cache.loadNumber(PersistentOcrCache.FIELD_HP, 42)).isEqualTo(Optional.of(55));
+        assertThat(cache.loadNumber(PersistentOcrCache.FIELD_CANDY_AMOUNT, 42)).isEqualTo(Optional.absent());
+        assertThat(cache.loadText(PersistentOcrCache.FIELD_CANDY_NAME, 42)).isNull();
+    }
+
+    @Test
+    public void clearsFileWithAnotherCapacity() throws Exception {
+        File file = new File(folder.getRoot(), "cache");
+        PersistentOcrCache cache = new PersistentOcrCache(file, 64);
+        cache.storeText(PersistentOcrCache.FIELD_NAME, 42, "Pidgey");
+        cache.close();
+
+        cache = new PersistentOcrCache(file, 128);
+        assertThat(cache.loadText(PersistentOcrCache.FIELD_NAME, 42)).isNull();
+    }
+
+    @Test
+    public void ignoresAccessAfterClose() throws Exception {
+        File file = new File(folder.getRoot(), "cache");
+        PersistentOcrCache cache = new PersistentOcrCache(file, 64);
+        cache.storeText(PersistentOcrCache.FIELD_NAME, 42, "Pidgey");
+        cache.close();
+
+        cache.storeText(PersistentOcrCache.FIELD_NAME, 43, "Rattata");
+        assertThat(cache.loadText(PersistentOcrCache.FIELD_NAME, 42)).isNull();
+
+        cache = new PersistentOcrCache(file, 64);
+        assertThat(cache.loadText(PersistentOcrCache.FIELD_NAME, 42)).isEqualTo("Pidgey");
+        assertThat(cache.loadText(PersistentOcrCache.FIELD_NAME, 43)).isNull();
+    }
+
+    @Test
+    public void evictsWhenFull() throws Exception {
+        PersistentOcrCache cache = new PersistentOcrCache(new File(folder.getRoot(), "cache"), 64);
+        for (int i = 0; i < 500; i++) {
+            cache.storeNumber(PersistentOcrCache.FIELD_HP, i * 64L, Optional.of(i));
+        }
+        int found = 0;
+        for (int i = 0; i < 500; i++) {
+            Optional<Integer> hp = cache.loadNumber(PersistentOcrCache.FIELD_HP, i * 64L);
+            if (hp != null) {
+                assertThat(hp.get()).isEqualTo(i);
+                found++;
+            }
+        }
+        assertThat(found).isEqualTo(48);
+        assertThat(cache.loadNumber(PersistentOcrCache.FIELD_HP, 499 * 64L)).isEqualTo(Optional.of(499));
+    }
+}